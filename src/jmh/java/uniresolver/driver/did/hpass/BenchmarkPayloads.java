@@ -0,0 +1,46 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass;
+
+final class BenchmarkPayloads {
+
+  static final String IDENTIFIER = "did:hpass:aaaa172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:"
+      + "f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6aaaa";
+
+  private static final String CONTROLLER = "did:hpass:f18c172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:"
+      + "f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d61678";
+
+  private BenchmarkPayloads() {
+  }
+
+  // health-authority response shaped like the one of the DID network, with publicKeyCount keys
+  static String healthAuthority(int publicKeyCount) {
+    StringBuilder publicKeys = new StringBuilder();
+    for (int i = 0; i < publicKeyCount; i++) {
+      if (i > 0) {
+        publicKeys.append(',');
+      }
+      publicKeys.append("{\"id\":\"").append(CONTROLLER).append("#key-").append(i + 1).append("\",")
+          .append("\"type\":\"P-256\",")
+          .append("\"controller\":\"").append(CONTROLLER).append("\",")
+          .append("\"publicKeyJwk\":{\"crv\":\"P-256\",\"kty\":\"EC\",")
+          .append("\"x\":\"afvXSTBvOIEDQ2DyRNNlI6cXf-b0-sdftMV8vgWGc_o\",")
+          .append("\"y\":\"OsGvVOFy12ENXovet217Fo4RG7v-uzWwKnk_IEmrcw0\"}}");
+    }
+    return "{\"type\":\"health-authority\",\"payload\":{\"id\":\"" + IDENTIFIER + "\","
+        + "\"created\":\"2021-02-13T16:06:55Z\",\"updated\":\"2021-02-13T16:06:55Z\","
+        + "\"@context\":[\"https://www.w3.org/ns/did/v1\"],"
+        + "\"publicKey\":[" + publicKeys + "]}}";
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uniresolver.driver.did.hpass.utils.IdentifierValidator;
+
+/**
+ * Compares the identifier and timestamp regular expressions the driver used before against the hand-written scanners
+ * of {@link IdentifierValidator}, for well-formed input and for garbage that a scanner rejects early or late.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentifierValidationBenchmark {
+
+  private static final Pattern DID_HPASS_PATTERN = Pattern.compile("^did:hpass:([0-9A-Fa-f]{60,65}):([0-9A-Fa-fts]{60,65})$");
+  private static final Pattern DID_DATE_TIME_PATTERN = Pattern
+      .compile("^\\d{4}\\-(0[1-9]|1[012])\\-(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3]):[0-5][0-9]:[0-5][0-9]Z$");
+
+  @Param({"valid", "wrongMethod", "badLastChar"})
+  private String input;
+
+  private String identifier;
+  private String dateTime;
+
+  @Setup
+  public void setup() {
+    String valid = BenchmarkPayloads.IDENTIFIER;
+    switch (this.input) {
+      case "wrongMethod":
+        this.identifier = valid.replace("did:hpass:", "did:hpasz:");
+        this.dateTime = "x020-12-20T19:17:47Z";
+        break;
+      case "badLastChar":
+        this.identifier = valid.substring(0, valid.length() - 1) + "g";
+        this.dateTime = "2020-12-20T19:17:47z";
+        break;
+      default:
+        this.identifier = valid;
+        this.dateTime = "2020-12-20T19:17:47Z";
+    }
+  }
+
+  @Benchmark
+  public boolean identifierPattern() {
+    return DID_HPASS_PATTERN.matcher(this.identifier).matches();
+  }
+
+  @Benchmark
+  public boolean identifierScanner() {
+    return IdentifierValidator.isWellFormedIdentifier(this.identifier);
+  }
+
+  @Benchmark
+  public boolean dateTimePattern() {
+    return DID_DATE_TIME_PATTERN.matcher(this.dateTime).matches();
+  }
+
+  @Benchmark
+  public boolean dateTimeScanner() {
+    return IdentifierValidator.isValidDateTime(this.dateTime);
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass;
+
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CONTROLLER;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_ID;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PAYLOAD;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PUBLIC_KEY;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PUBLIC_KEY_JWK;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_TYPE;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import foundation.identity.did.VerificationMethod;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uniresolver.driver.did.hpass.model.HealthAuthorityPayload;
+import uniresolver.driver.did.hpass.utils.JSONUtils;
+import uniresolver.driver.did.hpass.utils.MessageUtils;
+
+/**
+ * Compares mapping a health-authority response to verification methods through a {@link JsonNode} tree with
+ * {@code convertValue} for every key, as the driver did before, against streaming into {@link HealthAuthorityPayload}
+ * with a cached {@link ObjectReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBindingBenchmark {
+
+  @Param({"1", "10"})
+  private int publicKeyCount;
+
+  private byte[] body;
+  private ObjectMapper objectMapper;
+  private ObjectReader healthAuthorityReader;
+  private JSONUtils jsonUtils;
+
+  @Setup
+  public void setup() {
+    this.objectMapper = new ObjectMapper();
+    this.healthAuthorityReader = this.objectMapper.readerFor(HealthAuthorityPayload.class);
+    this.jsonUtils = new JSONUtils(this.objectMapper, new MessageUtils(ResourceBundle.getBundle("Messages")));
+    this.body = BenchmarkPayloads.healthAuthority(this.publicKeyCount).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public List<VerificationMethod> treeWithConvertValue() throws Exception {
+    JsonNode didPayload = this.objectMapper.readTree(this.body).get(DID_PAYLOAD);
+    List<VerificationMethod> verificationMethods = new ArrayList<>();
+    for (JsonNode publicKey : didPayload.get(DID_PUBLIC_KEY)) {
+      VerificationMethod verificationMethod = VerificationMethod.builder()
+          .id(URI.create(publicKey.get(DID_ID).textValue()))
+          .type(publicKey.get(DID_TYPE).textValue())
+          .publicKeyJwk(this.objectMapper.convertValue(publicKey.get(DID_PUBLIC_KEY_JWK), Map.class))
+          .build();
+      verificationMethod.setJsonObjectKeyValue(DID_CONTROLLER, publicKey.get(DID_CONTROLLER));
+      verificationMethods.add(verificationMethod);
+    }
+    return verificationMethods;
+  }
+
+  @Benchmark
+  public List<VerificationMethod> streamedTypedReader() throws Exception {
+    HealthAuthorityPayload didPayload = this.jsonUtils.readBodyPath(this.body, this.healthAuthorityReader, DID_PAYLOAD);
+    List<VerificationMethod> verificationMethods = new ArrayList<>();
+    for (HealthAuthorityPayload.PublicKey publicKey : didPayload.getPublicKeys()) {
+      VerificationMethod verificationMethod = VerificationMethod.builder()
+          .id(URI.create(publicKey.getId()))
+          .type(publicKey.getType())
+          .publicKeyJwk(publicKey.getPublicKeyJwk())
+          .build();
+      verificationMethod.setJsonObjectKeyValue(DID_CONTROLLER, publicKey.getController());
+      verificationMethods.add(verificationMethod);
+    }
+    return verificationMethods;
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass;
+
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
+
+import com.sun.net.httpserver.HttpServer;
+import foundation.identity.did.DID;
+import foundation.identity.did.parser.ParserException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uniresolver.ResolutionException;
+import uniresolver.result.ResolveDataModelResult;
+
+/**
+ * Resolves a DID end to end against an in-process stub of the DID network. The resolution cache is disabled, so every
+ * operation sends an HTTP request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+// without TCP_NODELAY on the stub server delayed ACKs dominate the measured latency
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class ResolveBenchmark {
+
+  @Param({"1", "10"})
+  private int publicKeyCount;
+
+  private HttpServer stubServer;
+  private ExecutorService stubExecutor;
+  private DidHpassDriver didHpassDriver;
+  private DID did;
+
+  @Setup
+  public void setup() throws IOException, ParserException {
+    byte[] body = BenchmarkPayloads.healthAuthority(this.publicKeyCount).getBytes(StandardCharsets.UTF_8);
+    this.stubServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.stubServer.createContext("/dids/", exchange -> {
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream responseBody = exchange.getResponseBody()) {
+        responseBody.write(body);
+      }
+    });
+    this.stubExecutor = Executors.newFixedThreadPool(4);
+    this.stubServer.setExecutor(this.stubExecutor);
+    this.stubServer.start();
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL,
+        String.format("http://127.0.0.1:%s/dids/$1", this.stubServer.getAddress().getPort()));
+    properties.put(UNIRESOLVER_DRIVER_AUTH_ENABLED, "false");
+    properties.put(UNIRESOLVER_DRIVER_CACHE_ENABLED, "false");
+    this.didHpassDriver = new DidHpassDriver(properties);
+    this.did = DID.fromString(BenchmarkPayloads.IDENTIFIER);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.didHpassDriver.close();
+    this.stubServer.stop(0);
+    this.stubExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public ResolveDataModelResult resolve() throws ResolutionException {
+    return this.didHpassDriver.resolve(this.did, null);
+  }
+}
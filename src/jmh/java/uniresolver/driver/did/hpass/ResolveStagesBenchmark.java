@@ -0,0 +1,123 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass;
+
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PAYLOAD;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import foundation.identity.did.VerificationMethod;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uniresolver.ResolutionException;
+import uniresolver.driver.did.hpass.model.HealthAuthorityPayload;
+import uniresolver.driver.did.hpass.utils.JSONUtils;
+import uniresolver.driver.did.hpass.utils.MessageUtils;
+
+/**
+ * Measures the stages of a resolution separately, without any network access.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveStagesBenchmark {
+
+  private static final String MALFORMED_IDENTIFIER = BenchmarkPayloads.IDENTIFIER.replace("did:hpass:", "did:hpasz:");
+
+  @Param({"1", "10"})
+  private int publicKeyCount;
+
+  private DidHpassDriver didHpassDriver;
+  private MessageUtils messageUtils;
+  private JSONUtils jsonUtils;
+  private ObjectReader healthAuthorityReader;
+  private byte[] body;
+  private HealthAuthorityPayload didPayload;
+
+  @Setup
+  public void setup() throws ResolutionException {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL, "http://localhost:8080/dids/$1");
+    properties.put(UNIRESOLVER_DRIVER_AUTH_ENABLED, "false");
+    this.didHpassDriver = new DidHpassDriver(properties);
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    this.messageUtils = new MessageUtils(ResourceBundle.getBundle("Messages"));
+    this.jsonUtils = new JSONUtils(objectMapper, this.messageUtils);
+    this.healthAuthorityReader = objectMapper.readerFor(HealthAuthorityPayload.class);
+    this.body = BenchmarkPayloads.healthAuthority(this.publicKeyCount).getBytes(StandardCharsets.UTF_8);
+    this.didPayload = this.jsonUtils.readBodyPath(this.body, this.healthAuthorityReader, DID_PAYLOAD);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.didHpassDriver.close();
+  }
+
+  @Benchmark
+  public void checkIfIdentifierIsWellFormed() throws ResolutionException {
+    this.didHpassDriver.checkIfIdentifierIsWellFormed(BenchmarkPayloads.IDENTIFIER);
+  }
+
+  @Benchmark
+  public ResolutionException rejectMalformedIdentifier() {
+    try {
+      this.didHpassDriver.checkIfIdentifierIsWellFormed(MALFORMED_IDENTIFIER);
+      return null;
+    } catch (ResolutionException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public HealthAuthorityPayload readBodyPath() throws ResolutionException {
+    return this.jsonUtils.readBodyPath(this.body, this.healthAuthorityReader, DID_PAYLOAD);
+  }
+
+  @Benchmark
+  public List<VerificationMethod> getVerificationMethods() throws ResolutionException {
+    return this.didHpassDriver.getVerificationMethods(this.didPayload);
+  }
+
+  @Benchmark
+  public Map<String, Object> getDidDocumentMetadata() {
+    return this.didHpassDriver.getDidDocumentMetadata(this.didPayload);
+  }
+
+  @Benchmark
+  public String formatMessage() {
+    return this.messageUtils.formatMessage("IDENTIFIER_IS_INVALID", BenchmarkPayloads.IDENTIFIER);
+  }
+}
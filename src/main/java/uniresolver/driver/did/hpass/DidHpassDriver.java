@@ -13,74 +13,153 @@
 
 package uniresolver.driver.did.hpass;
 
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_BATCH_CONCURRENCY;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_BATCH_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_URL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_HEDGE_PERCENTILE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE;
 import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_ENVIRONMENTS;
-import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_METADATA;
-import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_METHOD;
 import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_METHOD_GET;
 import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_PAYLOAD;
-import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_TYPE;
 import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_TYPE_REST;
-import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_URLS;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CONTROLLER;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CREATED;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_ID;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_JSON_WEB_KEY_2020;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PAYLOAD;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PUBLIC_KEY;
-import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PUBLIC_KEY_JWK;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_P_256;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_TYPE;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_UPDATED;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.RESOLUTION_OPTION_TIMEOUT_MILLIS;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.netflix.loadbalancer.Server;
 import foundation.identity.did.DID;
 import foundation.identity.did.DIDDocument;
 import foundation.identity.did.VerificationMethod;
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.BiFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uniresolver.ResolutionException;
 import uniresolver.driver.Driver;
+import uniresolver.driver.did.hpass.model.BatchResolutionResult;
+import uniresolver.driver.did.hpass.model.CachedResolution;
+import uniresolver.driver.did.hpass.model.HealthAuthorityPayload;
+import uniresolver.driver.did.hpass.model.RegistryEnvironment;
 import uniresolver.driver.did.hpass.model.ServerEnvironment;
 import uniresolver.driver.did.hpass.service.AppIdClient;
+import uniresolver.driver.did.hpass.utils.AdmissionController;
+import uniresolver.driver.did.hpass.utils.BoundedBodyHandler;
+import uniresolver.driver.did.hpass.utils.DaemonThreadFactory;
+import uniresolver.driver.did.hpass.utils.Deadline;
+import uniresolver.driver.did.hpass.utils.DefinitiveResolutionException;
+import uniresolver.driver.did.hpass.utils.DriverMetrics;
+import uniresolver.driver.did.hpass.utils.ExpiringCache;
+import uniresolver.driver.did.hpass.utils.FutureUtils;
+import uniresolver.driver.did.hpass.utils.HttpCaching;
+import uniresolver.driver.did.hpass.utils.IdentifierValidator;
 import uniresolver.driver.did.hpass.utils.JSONUtils;
+import uniresolver.driver.did.hpass.utils.LoadBalancerConfig;
 import uniresolver.driver.did.hpass.utils.MessageUtils;
+import uniresolver.driver.did.hpass.utils.PersistentCache;
 import uniresolver.driver.did.hpass.utils.PropertyUtils;
+import uniresolver.driver.did.hpass.utils.RefreshingCache;
 import uniresolver.driver.did.hpass.utils.RestClientLoadBalancer;
+import uniresolver.driver.did.hpass.utils.RestClientLoadBalancerRegistry;
+import uniresolver.driver.did.hpass.utils.RetryBudget;
+import uniresolver.driver.did.hpass.utils.RetryPolicy;
+import uniresolver.driver.did.hpass.utils.ServerSelectionPolicy;
+import uniresolver.driver.did.hpass.utils.SingleFlight;
 import uniresolver.result.ResolveDataModelResult;
 
-public class DidHpassDriver implements Driver {
+public class DidHpassDriver implements Driver, Closeable {
 
-  private static final Pattern DID_HPASS_PATTERN = Pattern.compile("^did:hpass:([0-9A-Fa-f]{60,65}):([0-9A-Fa-fts]{60,65})$");
-  private static final Pattern DID_DATE_TIME_PATTERN = Pattern
-      .compile("^\\d{4}\\-(0[1-9]|1[012])\\-(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3]):[0-5][0-9]:[0-5][0-9]Z$");
   private static final Logger log = LoggerFactory.getLogger(DidHpassDriver.class);
+  private static final String PERSISTED_DID = "did";
+  private static final String PERSISTED_REGISTRY_ENVIRONMENTS = "registryEnvironments";
   private final PropertyUtils propertyUtils;
   private final JSONUtils jsonUtils;
+  private final ObjectReader healthAuthorityReader;
+  private final ObjectReader registryEnvironmentsReader;
+  private final BoundedBodyHandler responseBodyHandler;
   private final AppIdClient appIdClient;
+  private final LoadBalancerConfig loadBalancerConfig;
   private final RestClientLoadBalancer loadBalancerForNetwork;
   private final RestClientLoadBalancer loadBalancerForRegistry;
+  private final RestClientLoadBalancerRegistry dynamicLoadBalancers;
   private final HttpClient httpClient;
   private final ObjectMapper objectMapper;
   private final Map<String, Object> properties;
   private final ResourceBundle messageBundle;
   private final MessageUtils messageUtils;
+  private final ExpiringCache<String, CachedResolution> resolutionCache;
+  private final ExpiringCache<String, ResolutionException> negativeCache;
+  private final ExecutorService registryRefreshExecutor;
+  private final RefreshingCache<String, ServerEnvironment> registryCache;
+  private final PersistentCache persistentCache;
+  private final SingleFlight<String, ResolveDataModelResult> resolutionsInFlight = new SingleFlight<>();
+  private final DriverMetrics metrics = new DriverMetrics();
+  private final int batchMaxSize;
+  private final int batchConcurrency;
+  private final long resolutionTimeoutMillis;
+  private final AdmissionController admissionController;
 
   public DidHpassDriver() {
     this(PropertyUtils.getPropertiesFromEnvironment());
@@ -92,13 +171,287 @@ public class DidHpassDriver implements Driver {
     this.propertyUtils = new PropertyUtils(this.messageUtils);
     this.propertyUtils.validateProperties(properties);
     this.properties = properties;
-    this.httpClient = HttpClient.newHttpClient();
+    this.httpClient = initHttpClient();
     this.objectMapper = new ObjectMapper();
     this.jsonUtils = new JSONUtils(this.objectMapper, this.messageUtils);
+    this.healthAuthorityReader = this.objectMapper.readerFor(HealthAuthorityPayload.class);
+    this.registryEnvironmentsReader = this.objectMapper.readerFor(new TypeReference<List<RegistryEnvironment>>() { });
+    this.responseBodyHandler = initResponseBodyHandler();
     this.appIdClient = new AppIdClient(this.properties, this.httpClient, this.objectMapper, this.jsonUtils, this.propertyUtils,
-        this.messageUtils);
+        this.messageUtils, this.metrics);
+    this.loadBalancerConfig = initLoadBalancerConfig();
     this.loadBalancerForNetwork = initStaticLoadBalancerForNetwork(this.httpClient, this.messageUtils);
     this.loadBalancerForRegistry = initStaticLoadBalancerForRegistry(this.httpClient, this.messageUtils);
+    this.dynamicLoadBalancers = initDynamicLoadBalancers(this.httpClient, this.messageUtils);
+    this.resolutionCache = initResolutionCache();
+    this.negativeCache = initNegativeCache();
+    this.registryRefreshExecutor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("hpass-registry-refresh"));
+    this.registryCache = initRegistryCache();
+    this.persistentCache = initPersistentCache();
+    this.batchMaxSize = initBatchLimit(UNIRESOLVER_DRIVER_BATCH_MAX_SIZE);
+    this.batchConcurrency = initBatchLimit(UNIRESOLVER_DRIVER_BATCH_CONCURRENCY);
+    this.resolutionTimeoutMillis = initResolutionTimeout();
+    this.admissionController = initAdmissionController();
+  }
+
+  public DriverMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Returns the {@code Cache-Control} directives for successful resolution responses, empty if none are sent.
+   */
+  public String getCacheControl() {
+    return (String) this.properties.getOrDefault(UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL, "");
+  }
+
+  public long getResolutionTimeoutMillis() {
+    return this.resolutionTimeoutMillis;
+  }
+
+  /**
+   * Returns the admission controller of the resolve endpoint, null if admission control is disabled.
+   */
+  public AdmissionController getAdmissionController() {
+    return this.admissionController;
+  }
+
+  /**
+   * Stops the background threads of the driver and closes the persistent cache file, e.g. when the web application is
+   * undeployed.
+   */
+  @Override
+  public void close() {
+    this.appIdClient.close();
+    ScheduledExecutorService probeScheduler = this.loadBalancerConfig.getProbeScheduler();
+    if (probeScheduler != null) {
+      probeScheduler.shutdownNow();
+    }
+    this.registryRefreshExecutor.shutdownNow();
+    if (this.persistentCache != null) {
+      try {
+        this.persistentCache.close();
+      } catch (IOException e) {
+        this.messageUtils.warn(log, "PERSISTENT_CACHE_CLOSE_FAILED", this.persistentCache.getFile(), e.getMessage());
+      }
+    }
+    Deadline.shutdown();
+    this.messageUtils.info(log, "DRIVER_CLOSED");
+  }
+
+  /**
+   * Returns all driver metrics and the per-server statistics of all load balancers in the Prometheus text format.
+   */
+  public String scrapeMetrics() {
+    Map<String, RestClientLoadBalancer> loadBalancers = new LinkedHashMap<>();
+    if (this.loadBalancerForNetwork != null) {
+      loadBalancers.put("network", this.loadBalancerForNetwork);
+    }
+    if (this.loadBalancerForRegistry != null) {
+      loadBalancers.put("registry", this.loadBalancerForRegistry);
+    }
+    if (this.dynamicLoadBalancers != null) {
+      loadBalancers.putAll(this.dynamicLoadBalancers.getLoadBalancers());
+    }
+
+    StringBuilder out = new StringBuilder();
+    this.metrics.writeTo(out, loadBalancers);
+    return out.toString();
+  }
+
+  private RetryPolicy initRetryPolicy() throws ResolutionException {
+    long backoffBaseMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS);
+    long backoffMaxMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS);
+    double budgetRatio = this.propertyUtils.getDoublePropertyByKey(this.properties, UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO);
+    long budgetReserve = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE);
+
+    this.messageUtils.info(log, "INITIALIZE_RETRY_POLICY", backoffBaseMillis, backoffMaxMillis, budgetRatio, budgetReserve);
+
+    return new RetryPolicy(RetryPolicy.DEFAULT_MAX_RETRIES, backoffBaseMillis, backoffMaxMillis,
+        new RetryBudget(budgetRatio, Math.toIntExact(budgetReserve)));
+  }
+
+  private HttpClient initHttpClient() {
+    try {
+      long connectTimeoutMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS);
+      HttpClient.Builder builder = HttpClient.newBuilder();
+      if (connectTimeoutMillis > 0) {
+        builder.connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+      }
+      return builder.build();
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_HTTP_CLIENT", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private long initResolutionTimeout() {
+    try {
+      long timeoutMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS);
+      if (timeoutMillis <= 0) {
+        throw new IllegalArgumentException(this.messageUtils.formatMessage("ILLEGAL_ARGUMENT", UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS,
+            timeoutMillis));
+      }
+      return timeoutMillis;
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_RESOLUTION_TIMEOUT", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private AdmissionController initAdmissionController() {
+    try {
+      long maxConcurrent = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT);
+      if (maxConcurrent <= 0) {
+        return null;
+      }
+      long maxQueue = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE);
+      long targetMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS);
+      long intervalMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS);
+
+      AdmissionController admissionController = new AdmissionController(Math.toIntExact(maxConcurrent), Math.toIntExact(maxQueue),
+          targetMillis, intervalMillis, this.metrics);
+
+      this.messageUtils.info(log, "INITIALIZE_ADMISSION_CONTROL", maxConcurrent, maxQueue, targetMillis, intervalMillis);
+
+      return admissionController;
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_ADMISSION_CONTROL", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private int initBatchLimit(String key) {
+    try {
+      long value = this.propertyUtils.getLongPropertyByKey(this.properties, key);
+      if (value <= 0) {
+        throw new IllegalArgumentException(this.messageUtils.formatMessage("ILLEGAL_ARGUMENT", key, value));
+      }
+      return Math.toIntExact(value);
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_BATCH_RESOLUTION", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private BoundedBodyHandler initResponseBodyHandler() {
+    try {
+      long maxBytes = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES);
+      return new BoundedBodyHandler(maxBytes, this.messageUtils);
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_RESPONSE_BODY_LIMIT", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private LoadBalancerConfig initLoadBalancerConfig() {
+    try {
+      ServerSelectionPolicy serverSelectionPolicy = ServerSelectionPolicy
+          .fromName(this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY));
+      long hedgeDelayMillis = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS);
+      long hedgePercentile = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_HEDGE_PERCENTILE);
+
+      LoadBalancerConfig config = new LoadBalancerConfig()
+          .withServerSelectionPolicy(serverSelectionPolicy)
+          .withHedgeDelayMillis(hedgeDelayMillis)
+          .withHedgePercentile(Math.toIntExact(hedgePercentile))
+          .withMetrics(this.metrics)
+          .withRetryPolicy(initRetryPolicy());
+
+      this.messageUtils.info(log, "INITIALIZE_LOAD_BALANCER_CONFIG", serverSelectionPolicy.getName(), hedgeDelayMillis, hedgePercentile);
+
+      long failureThreshold = this.propertyUtils
+          .getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+      if (failureThreshold > 0) {
+        long openSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS);
+        long probeSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS);
+        config.withCircuitBreaker(Math.toIntExact(failureThreshold), openSeconds * 1000);
+
+        if (probeSeconds > 0) {
+          ScheduledThreadPoolExecutor probeScheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("hpass-health-probe"));
+          probeScheduler.setRemoveOnCancelPolicy(true);
+          config.withProbe(probeSeconds * 1000, probeScheduler);
+        }
+
+        this.messageUtils.info(log, "INITIALIZE_CIRCUIT_BREAKER", failureThreshold, openSeconds, probeSeconds);
+      }
+
+      long maxConcurrencyLimit = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX);
+      if (maxConcurrencyLimit > 0) {
+        long initialConcurrencyLimit = this.propertyUtils
+            .getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL);
+        if (initialConcurrencyLimit <= 0) {
+          // without samples the limiter cannot know what a server takes, a cold burst must not fail fast
+          initialConcurrencyLimit = maxConcurrencyLimit;
+        }
+        config.withConcurrencyLimit(Math.toIntExact(initialConcurrencyLimit), Math.toIntExact(maxConcurrencyLimit));
+
+        this.messageUtils.info(log, "INITIALIZE_CONCURRENCY_LIMIT", initialConcurrencyLimit, maxConcurrencyLimit);
+      }
+
+      return config;
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_LOAD_BALANCER_CONFIG", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private RestClientLoadBalancerRegistry initDynamicLoadBalancers(HttpClient httpClient, MessageUtils messageUtils) {
+    try {
+      if (!this.isNetworksRegistryEnabled()) {
+        return null;
+      }
+
+      long idleSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS);
+      return new RestClientLoadBalancerRegistry(httpClient, messageUtils, idleSeconds * 1000, this.loadBalancerConfig);
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_DYNAMIC_NETWORK_LOAD_BALANCER", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private ExpiringCache<String, CachedResolution> initResolutionCache() {
+    try {
+      if (!this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CACHE_ENABLED).equals("true")) {
+        return null;
+      }
+
+      long maxSize = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CACHE_MAX_SIZE);
+      long ttlSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS);
+
+      this.messageUtils.info(log, "INITIALIZE_RESOLUTION_CACHE", maxSize, ttlSeconds);
+
+      return new ExpiringCache<>(Math.toIntExact(maxSize), ttlSeconds * 1000);
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_RESOLUTION_CACHE", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private ExpiringCache<String, ResolutionException> initNegativeCache() {
+    try {
+      long maxSize = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE);
+      long ttlSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS);
+      if (ttlSeconds <= 0) {
+        return null;
+      }
+
+      this.messageUtils.info(log, "INITIALIZE_NEGATIVE_CACHE", maxSize, ttlSeconds);
+
+      return new ExpiringCache<>(Math.toIntExact(maxSize), ttlSeconds * 1000);
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_NEGATIVE_CACHE", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
   }
 
   private RestClientLoadBalancer initStaticLoadBalancerForNetwork(HttpClient httpClient, MessageUtils messageUtils) {
@@ -115,10 +468,9 @@ public class DidHpassDriver implements Driver {
         networkServerList.add(new Server(url, aURL.getPort()));
       }
 
-      String message = this.messageUtils.formatMessage("INITIALIZE_NETWORK_LOAD_BALANCER", networkServerList);
-      log.info(message);
+      this.messageUtils.info(log, "INITIALIZE_NETWORK_LOAD_BALANCER", networkServerList);
 
-      return new RestClientLoadBalancer(httpClient, messageUtils, networkServerList);
+      return new RestClientLoadBalancer(httpClient, messageUtils, networkServerList, this.loadBalancerConfig);
     } catch (Exception e) {
       String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_NETWORK_LOAD_BALANCER", e.getMessage());
       log.error(message);
@@ -140,10 +492,9 @@ public class DidHpassDriver implements Driver {
         networkServerList.add(new Server(url, aURL.getPort()));
       }
 
-      String message = this.messageUtils.formatMessage("INITIALIZE_REGISTRY_LOAD_BALANCER", networkServerList);
-      log.info(message);
+      this.messageUtils.info(log, "INITIALIZE_REGISTRY_LOAD_BALANCER", networkServerList);
 
-      return new RestClientLoadBalancer(httpClient, messageUtils, networkServerList);
+      return new RestClientLoadBalancer(httpClient, messageUtils, networkServerList, this.loadBalancerConfig);
     } catch (Exception e) {
       String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_REGISTRY_LOAD_BALANCER", e.getMessage());
       log.error(message);
@@ -151,6 +502,85 @@ public class DidHpassDriver implements Driver {
     }
   }
 
+  private RefreshingCache<String, ServerEnvironment> initRegistryCache() {
+    try {
+      if (!this.isNetworksRegistryEnabled()) {
+        return null;
+      }
+
+      long maxSize = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE);
+      long ttlSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS);
+      if (ttlSeconds <= 0) {
+        return null;
+      }
+
+      long maxStaleSeconds = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS);
+
+      this.messageUtils.info(log, "INITIALIZE_REGISTRY_CACHE", maxSize, ttlSeconds, maxStaleSeconds);
+
+      return new RefreshingCache<>(Math.toIntExact(maxSize), ttlSeconds * 1000, maxStaleSeconds * 1000, this.registryRefreshExecutor,
+          this.messageUtils);
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_REGISTRY_CACHE", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  private PersistentCache initPersistentCache() {
+    try {
+      String file = this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE).trim();
+      if (file.isEmpty() || (this.resolutionCache == null && this.registryCache == null)) {
+        return null;
+      }
+
+      long maxBytes = this.propertyUtils.getLongPropertyByKey(this.properties, UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES);
+      PersistentCache persistentCache = new PersistentCache(Paths.get(file), maxBytes, this.objectMapper, this.messageUtils);
+      int restored = restoreFromPersistentCache(persistentCache);
+
+      this.messageUtils.info(log, "INITIALIZE_PERSISTENT_CACHE", file, maxBytes, restored);
+
+      return persistentCache;
+    } catch (Exception e) {
+      String message = this.messageUtils.formatMessage("ERROR_INITIALIZE_PERSISTENT_CACHE", e.getMessage());
+      log.error(message);
+      throw new RuntimeException(message, e);
+    }
+  }
+
+  // entries are restored oldest first, so the in-memory bounds evict the oldest ones
+  private int restoreFromPersistentCache(PersistentCache persistentCache) throws IOException {
+    int restored = 0;
+    for (PersistentCache.Entry entry : persistentCache.load()) {
+      try {
+        switch (entry.getNamespace()) {
+          case PERSISTED_DID:
+            if (this.resolutionCache != null) {
+              HealthAuthorityPayload didPayload = this.healthAuthorityReader.readValue(entry.getValue());
+              CachedResolution cachedResolution = new CachedResolution(buildResolveResult(entry.getKey(), didPayload), null,
+                  getLastModified(didPayload));
+              this.resolutionCache.restore(entry.getKey(), cachedResolution, entry.getStoredAt());
+              restored++;
+            }
+            break;
+          case PERSISTED_REGISTRY_ENVIRONMENTS:
+            if (this.registryCache != null) {
+              List<RegistryEnvironment> environments = this.registryEnvironmentsReader.readValue(entry.getValue());
+              ServerEnvironment serverEnvironment = toServerEnvironment(environments);
+              if (serverEnvironment != null) {
+                this.registryCache.restore(entry.getKey(), serverEnvironment, entry.getStoredAt());
+                restored++;
+              }
+            }
+            break;
+        }
+      } catch (IOException | ResolutionException | RuntimeException e) {
+        this.messageUtils.debug(log, "PERSISTENT_CACHE_ENTRY_SKIPPED", persistentCache.getFile(), e.getMessage());
+      }
+    }
+    return restored;
+  }
+
   @Override
   public Map<String, Object> properties() throws ResolutionException {
     return this.properties;
@@ -158,31 +588,235 @@ public class DidHpassDriver implements Driver {
 
   @Override
   public ResolveDataModelResult resolve(DID did, Map<String, Object> resolutionOptions) throws ResolutionException {
+    return FutureUtils.await(resolveAsync(did, resolutionOptions));
+  }
+
+  public CompletableFuture<ResolveDataModelResult> resolveAsync(DID did, Map<String, Object> resolutionOptions) {
+    String identifier = did.getDidString();
+    Deadline deadline;
+    try {
+      deadline = getDeadline(resolutionOptions);
+    } catch (ResolutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    CompletableFuture<ResolveDataModelResult> resolution = resolveIdentifier(identifier, this::retrieveNetworkServers);
+    return this.metrics.time(DriverMetrics.Stage.RESOLVE, deadline.bound(resolution,
+        () -> this.messageUtils.formatMessage("RESOLUTION_DEADLINE_EXCEEDED", identifier, String.valueOf(deadline.getTimeoutMillis()))));
+  }
+
+  // the configured timeout, a caller may ask for less time through the resolution options but not for more
+  private Deadline getDeadline(Map<String, Object> resolutionOptions) throws ResolutionException {
+    Object option = resolutionOptions == null ? null : resolutionOptions.get(RESOLUTION_OPTION_TIMEOUT_MILLIS);
+    if (option == null) {
+      return Deadline.after(this.resolutionTimeoutMillis);
+    }
+
+    long timeoutMillis;
+    try {
+      timeoutMillis = option instanceof Number ? ((Number) option).longValue() : Long.parseLong(option.toString().trim());
+    } catch (NumberFormatException e) {
+      timeoutMillis = -1;
+    }
+    if (timeoutMillis <= 0) {
+      String message = this.messageUtils.formatMessage("ILLEGAL_ARGUMENT", RESOLUTION_OPTION_TIMEOUT_MILLIS, option);
+      log.debug(message);
+      throw new ResolutionException(message);
+    }
+    return Deadline.after(Math.min(timeoutMillis, this.resolutionTimeoutMillis));
+  }
+
+  public List<BatchResolutionResult> resolveBatch(List<String> identifiers, Map<String, Object> resolutionOptions)
+      throws ResolutionException {
+    return FutureUtils.await(resolveBatchAsync(identifiers, resolutionOptions));
+  }
+
+  public CompletableFuture<List<BatchResolutionResult>> resolveBatchAsync(List<String> identifiers, Map<String, Object> resolutionOptions) {
+    if (identifiers == null) {
+      String message = this.messageUtils.formatMessage("MANDATORY_KEY_NOT_FOUND", "identifiers");
+      log.debug(message);
+      return CompletableFuture.failedFuture(new ResolutionException(message));
+    }
+    if (identifiers.size() > this.batchMaxSize) {
+      // like a malformed identifier, an oversized batch is a client mistake
+      String message = this.messageUtils.formatMessage("BATCH_SIZE_EXCEEDED", String.valueOf(identifiers.size()),
+          String.valueOf(this.batchMaxSize));
+      log.debug(message);
+      return CompletableFuture.failedFuture(new ResolutionException(message));
+    }
 
-    checkIfIdentifierIsWellFormed(did.getDidString());
+    // all identifiers of a batch share one deadline
+    Deadline deadline;
+    try {
+      deadline = getDeadline(resolutionOptions);
+    } catch (ResolutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    // malformed identifiers fail on their own before grouping, identifiers of the same network are resolved next to each
+    // other and share a single registry lookup
+    Map<String, BatchResolutionResult> results = new ConcurrentHashMap<>();
+    BatchResolutionResult nullIdentifierResult = null;
+    Map<String, List<String>> identifiersByNetwork = new LinkedHashMap<>();
+    for (String identifier : new LinkedHashSet<>(identifiers)) {
+      try {
+        checkIfIdentifierIsWellFormed(identifier);
+      } catch (ResolutionException e) {
+        BatchResolutionResult failure = BatchResolutionResult.failure(identifier, e.getMessage());
+        if (identifier == null) {
+          nullIdentifierResult = failure;
+        } else {
+          results.put(identifier, failure);
+        }
+        continue;
+      }
+      identifiersByNetwork.computeIfAbsent(getNetworkID(identifier), key -> new ArrayList<>()).add(identifier);
+    }
+    List<String> orderedIdentifiers = new ArrayList<>();
+    identifiersByNetwork.values().forEach(orderedIdentifiers::addAll);
+
+    Map<String, CompletableFuture<ServerEnvironment>> serverEnvironments = new ConcurrentHashMap<>();
+    BiFunction<String, Deadline, CompletableFuture<ServerEnvironment>> serverEnvironmentLookup = (identifier, lookupDeadline) ->
+        serverEnvironments.computeIfAbsent(getNetworkID(identifier), key -> retrieveNetworkServers(identifier, lookupDeadline));
+
+    CompletableFuture<Void> allResolved = FutureUtils.forEachBounded(orderedIdentifiers, this.batchConcurrency,
+        identifier -> deadline.bound(resolveIdentifier(identifier, serverEnvironmentLookup),
+            () -> this.messageUtils.formatMessage("RESOLUTION_DEADLINE_EXCEEDED", identifier, String.valueOf(deadline.getTimeoutMillis())))
+            .handle((resolveResult, error) -> {
+          if (error == null) {
+            results.put(identifier, BatchResolutionResult.success(identifier, resolveResult));
+          } else {
+            results.put(identifier, BatchResolutionResult.failure(identifier, FutureUtils.unwrap(error).getMessage()));
+          }
+          return null;
+        }));
+
+    BatchResolutionResult nullResult = nullIdentifierResult;
+    return allResolved.thenApply(ignored -> {
+      List<BatchResolutionResult> batchResults = new ArrayList<>(identifiers.size());
+      for (String identifier : identifiers) {
+        batchResults.add(identifier == null ? nullResult : results.get(identifier));
+      }
+      return batchResults;
+    });
+  }
+
+  private CompletableFuture<ResolveDataModelResult> resolveIdentifier(String identifier,
+      BiFunction<String, Deadline, CompletableFuture<ServerEnvironment>> serverEnvironmentLookup) {
+    try {
+      checkIfIdentifierIsWellFormed(identifier);
+    } catch (ResolutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    // an expired entry is not served, but revalidated with a conditional request instead of fetched again
+    CachedResolution expiredResolution = null;
+    if (this.resolutionCache != null) {
+      ExpiringCache.Entry<CachedResolution> cachedEntry = this.resolutionCache.getEntry(identifier);
+      if (cachedEntry != null && !cachedEntry.isExpired()) {
+        log.debug("Resolution cache hit for identifier: {}", identifier);
+        this.metrics.recordCacheHit();
+        return CompletableFuture.completedFuture(cachedEntry.getValue().getResolveResult());
+      }
+      this.metrics.recordCacheMiss();
+      if (cachedEntry != null && cachedEntry.getValue().isRevalidatable()) {
+        expiredResolution = cachedEntry.getValue();
+      }
+    }
+
+    CompletableFuture<ResolveDataModelResult> cachedFailure = getCachedFailure(identifier);
+    if (cachedFailure != null) {
+      return cachedFailure;
+    }
+
+    // concurrent callers for the same identifier share one resolution against the backends, it runs under the configured
+    // timeout because later callers may allow more time than the first one, every caller only bounds its own wait
+    CachedResolution revalidatedResolution = expiredResolution;
+    return this.resolutionsInFlight.execute(identifier, () -> resolveFromNetwork(identifier, serverEnvironmentLookup,
+        revalidatedResolution, Deadline.after(this.resolutionTimeoutMillis)));
+  }
+
+  private CompletableFuture<ResolveDataModelResult> resolveFromNetwork(String identifier,
+      BiFunction<String, Deadline, CompletableFuture<ServerEnvironment>> serverEnvironmentLookup, CachedResolution expiredResolution,
+      Deadline deadline) {
+    return serverEnvironmentLookup.apply(identifier, deadline)
+        .thenCompose(blockchainNetwork -> fetchDidFromBlockchainNetwork(blockchainNetwork, identifier, expiredResolution, deadline))
+        .thenApply(didResponse -> {
+          try {
+            if (didResponse.isNotModified()) {
+              this.metrics.recordNotModified();
+              this.resolutionCache.renew(identifier);
+              return expiredResolution.getResolveResult();
+            }
+
+            HealthAuthorityPayload didPayload = didResponse.getDidPayload();
+            ResolveDataModelResult resolveResult = buildResolveResult(identifier, didPayload);
+            if (this.resolutionCache != null) {
+              String lastModified = didResponse.getLastModified() != null ? didResponse.getLastModified() : getLastModified(didPayload);
+              this.resolutionCache.put(identifier, new CachedResolution(resolveResult, didResponse.getEntityTag(), lastModified));
+              if (this.persistentCache != null) {
+                this.persistentCache.put(PERSISTED_DID, identifier, didPayload);
+              }
+            }
+            return resolveResult;
+          } catch (ResolutionException e) {
+            throw FutureUtils.wrap(e);
+          }
+        })
+        .whenComplete((resolveResult, error) -> cacheDefinitiveFailure(identifier, error));
+  }
+
+  private <T> CompletableFuture<T> getCachedFailure(String key) {
+    if (this.negativeCache == null) {
+      return null;
+    }
+    ResolutionException failure = this.negativeCache.get(key);
+    if (failure == null) {
+      return null;
+    }
+    this.metrics.recordNegativeCacheHit();
+    return CompletableFuture.failedFuture(failure);
+  }
+
+  private void cacheDefinitiveFailure(String key, Throwable error) {
+    if (this.negativeCache != null && error != null) {
+      Throwable cause = FutureUtils.unwrap(error);
+      if (cause instanceof DefinitiveResolutionException) {
+        this.negativeCache.put(key, (ResolutionException) cause);
+      }
+    }
+  }
 
-    ServerEnvironment blockchainNetwork = retrieveNetworkServers(did.getDidString());
+  // a DID network or registry answering 404 or 410 does not know the DID or the network
+  private static boolean isNotFound(int statusCode) {
+    return statusCode == 404 || statusCode == 410;
+  }
 
-    JsonNode didBody = fetchDidFromBlockchainNetwork(blockchainNetwork, did.getDidString());
+  // a definitive failure stays definitive when it is wrapped with more context
+  private static ResolutionException withContext(String message, Exception cause) {
+    if (cause instanceof DefinitiveResolutionException) {
+      return new DefinitiveResolutionException(message, cause);
+    }
+    return new ResolutionException(message, cause);
+  }
 
-    JsonNode didPayload = getDidPayload(didBody);
+  private ResolveDataModelResult buildResolveResult(String identifier, HealthAuthorityPayload didPayload) throws ResolutionException {
+    checkDidPayload(didPayload);
 
     List<VerificationMethod> verificationMethods = getVerificationMethods(didPayload);
 
     DIDDocument didDocument = DIDDocument.builder()
-        .id(URI.create(did.getDidString()))
+        .id(URI.create(identifier))
         .verificationMethods(verificationMethods)
         .build();
 
     Map<String, Object> didDocumentMetadata = getDidDocumentMetadata(didPayload);
 
-    ResolveDataModelResult resolveResult = ResolveDataModelResult.build(null, didDocument,  didDocumentMetadata);
-
-    return resolveResult;
+    return ResolveDataModelResult.build(null, didDocument,  didDocumentMetadata);
   }
 
-  private List<VerificationMethod> getVerificationMethods(JsonNode didDocument) throws ResolutionException {
-    JsonNode publicKeys = didDocument.get(DID_PUBLIC_KEY);
+  List<VerificationMethod> getVerificationMethods(HealthAuthorityPayload didPayload) throws ResolutionException {
+    List<HealthAuthorityPayload.PublicKey> publicKeys = didPayload.getPublicKeys();
     if (publicKeys == null) {
       String message = this.messageUtils.formatMessage("VALUE_FOR_KEY_IS_NULL", DID_PUBLIC_KEY);
       log.error(message);
@@ -190,54 +824,46 @@ public class DidHpassDriver implements Driver {
     }
     List<VerificationMethod> verificationMethods = new ArrayList<>();
 
-    for (JsonNode publicKey : publicKeys) {
+    for (HealthAuthorityPayload.PublicKey publicKey : publicKeys) {
 
       // mandatory field
       String key = DID_ID;
-      JsonNode value = publicKey.get(key);
+      String value = publicKey.getId();
       if (value == null) {
         String message = this.messageUtils.formatMessage("MANDATORY_KEY_NOT_FOUND", key);
         log.error(message);
         throw new ResolutionException(message);
       }
-      URI keyId = URI.create(value.textValue());
+      URI keyId = URI.create(value);
 
       // mandatory field
       key = DID_TYPE;
-      value = publicKey.get(key);
+      value = publicKey.getType();
       if (value == null) {
         String message = this.messageUtils.formatMessage("MANDATORY_KEY_NOT_FOUND", key);
         log.error(message);
         throw new ResolutionException(message);
       }
-      // Workaround: fix on Healthpass side, then assign `String keyType = value.textValue();
-      String type = value.textValue();
+      // Workaround: fix on Healthpass side, then assign `String keyType = value;
       String keyType;
-      switch (type) {
+      switch (value) {
         case DID_P_256:
           keyType = DID_JSON_WEB_KEY_2020;
           break;
         default:
-          keyType = type;
-      }
-
-      // optional field
-      key = DID_PUBLIC_KEY_JWK;
-      Map<String, Object> keyMap = null;
-      Object publicKeyJwk = publicKey.get(key);
-      if (publicKeyJwk != null) {
-        keyMap = this.objectMapper.convertValue(publicKeyJwk, Map.class);
+          keyType = value;
       }
 
+      // optional field, already bound to a map while reading the response
       VerificationMethod verificationMethod = VerificationMethod.builder()
           .id(keyId)
           .type(keyType)
-          .publicKeyJwk(keyMap)
+          .publicKeyJwk(publicKey.getPublicKeyJwk())
           .build();
 
       // mandatory "controller" field
       key = DID_CONTROLLER;
-      Object controller = publicKey.get(key);
+      Object controller = publicKey.getController();
       if (controller == null) {
         String message = this.messageUtils.formatMessage("MANDATORY_KEY_NOT_FOUND", key);
         log.error(message);
@@ -249,88 +875,133 @@ public class DidHpassDriver implements Driver {
     return verificationMethods;
   }
 
-  private JsonNode getDidPayload(JsonNode didBody) throws ResolutionException {
-    String key = DID_PAYLOAD;
-    JsonNode didPayload = didBody.get(key);
+  private void checkDidPayload(HealthAuthorityPayload didPayload) throws ResolutionException {
     if (didPayload == null) {
       String message = this.messageUtils.formatMessage("DID_PAYLOAD_NOT_FOUND");
       log.error(message);
       throw new ResolutionException(message);
     }
-    return didPayload;
   }
 
-  private ServerEnvironment retrieveNetworkServers(String identifier) throws ResolutionException {
+  private CompletableFuture<ServerEnvironment> retrieveNetworkServers(String identifier, Deadline deadline) {
     Boolean staticServerList;
 
-    // without network registry always return static list of  network servers
-    if (!this.isNetworksRegistryEnabled()) {
-      staticServerList = Boolean.TRUE;
-      ServerEnvironment serverEnvironment = new ServerEnvironment(this.loadBalancerForNetwork.getAllServers(), REGISTRY_METHOD_GET,
-          staticServerList);
+    try {
+      // without network registry always return static list of  network servers
+      if (!this.isNetworksRegistryEnabled()) {
+        staticServerList = Boolean.TRUE;
+        ServerEnvironment serverEnvironment = new ServerEnvironment(this.loadBalancerForNetwork.getAllServers(), REGISTRY_METHOD_GET,
+            staticServerList);
 
-      return serverEnvironment;
+        return CompletableFuture.completedFuture(serverEnvironment);
+      }
+    } catch (ResolutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    // get networks servers from registry, all identifiers of a network share the same environments
+    String networkID = getNetworkID(identifier);
+    CompletableFuture<ServerEnvironment> cachedFailure = getCachedFailure(networkID);
+    if (cachedFailure != null) {
+      return cachedFailure;
     }
 
-    // get networks servers from registry
+    // the cache keeps the loader for background refreshes after this request is gone, so it gets a deadline of its own,
+    // this request still only waits until its deadline
+    CompletableFuture<ServerEnvironment> serverEnvironment = this.registryCache != null
+        ? this.registryCache.get(networkID,
+            key -> fetchNetworkServersFromRegistry(key, identifier, Deadline.after(this.resolutionTimeoutMillis)))
+        : fetchNetworkServersFromRegistry(networkID, identifier, deadline);
+    return this.metrics.time(DriverMetrics.Stage.REGISTRY,
+        serverEnvironment.whenComplete((environment, error) -> cacheDefinitiveFailure(networkID, error)));
+  }
+
+  private CompletableFuture<ServerEnvironment> fetchNetworkServersFromRegistry(String networkID, String identifier, Deadline deadline) {
     HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
-    JsonNode response;
+
+    return this.loadBalancerForRegistry.makeRequestWithRetryAsync(requestBuilder, networkID, this.responseBodyHandler, deadline)
+        .handle((httpResponse, error) -> {
+          try {
+            return readServerEnvironment(httpResponse, error, networkID, identifier);
+          } catch (ResolutionException e) {
+            throw FutureUtils.wrap(e);
+          }
+        });
+  }
+
+  private ServerEnvironment readServerEnvironment(HttpResponse<byte[]> httpResponse, Throwable error, String networkID,
+      String identifier) throws ResolutionException {
+    List<RegistryEnvironment> environments;
     try {
-      String networkID = identifier.substring(0, identifier.lastIndexOf(":"));
-      HttpResponse<String> httpResponse = this.loadBalancerForRegistry.makeRequestWithRetry(requestBuilder, networkID);
+      if (error != null) {
+        throw serverRequestUnsuccessful(error);
+      }
 
       if (httpResponse.statusCode() / 100 != 2) {
         String message = this.messageUtils
             .formatMessage("COULD_NOT_RETRIEVE_VALID_HTTP_RESPONSE_FROM_BLOCKCHAIN_NETWORK", httpResponse.uri(), httpResponse.statusCode());
         log.error(message);
-        throw new ResolutionException(message);
+        throw isNotFound(httpResponse.statusCode()) ? new DefinitiveResolutionException(message) : new ResolutionException(message);
       }
-      response = this.jsonUtils.retrieveBodyAsJsonObject(httpResponse);
+      // only the environments are read from the registry response, everything else is skipped while parsing
+      long parseStart = System.nanoTime();
+      environments = this.jsonUtils
+          .retrieveBodyPath(httpResponse, this.registryEnvironmentsReader, REGISTRY_PAYLOAD, REGISTRY_ENVIRONMENTS);
+      this.metrics.recordLatency(DriverMetrics.Stage.PARSE, parseStart, false);
     } catch (Exception e) {
       String message = this.messageUtils
           .formatMessage("COULD_NOT_RETRIEVE_SERVERS_FROM_REGISTRY_FOR_IDENTIFIER", identifier, e.getMessage());
       log.error(message);
-      throw new ResolutionException(message, e);
+      throw withContext(message, e);
     }
 
-    if (response == null || response.size() == 0 || !response.hasNonNull(REGISTRY_PAYLOAD) || !response.get(REGISTRY_PAYLOAD)
-        .hasNonNull(REGISTRY_ENVIRONMENTS)) {
+    if (environments == null) {
       String message = this.messageUtils.formatMessage("COULD_NOT_RETRIEVE_VALID_JSON_RESPONSE_FROM_BLOCKCHAIN_NETWORK", identifier);
       log.error(message);
       throw new ResolutionException(message);
     }
 
-    JsonNode environments = response.get(REGISTRY_PAYLOAD).get(REGISTRY_ENVIRONMENTS);
+    ServerEnvironment serverEnvironment = toServerEnvironment(environments);
+    if (serverEnvironment == null) {
+      String response = new String(httpResponse.body(), StandardCharsets.UTF_8);
+      String message = this.messageUtils.formatMessage("COULD_NOT_RESOLVE_DID_NETWORK_URL_FROM_REGISTRY_RESPONSE", response);
+      log.error(message);
+      throw new DefinitiveResolutionException(message);
+    }
+
+    // restoring the environments is only useful with a registry cache to restore them into
+    if (this.registryCache != null && this.persistentCache != null) {
+      this.persistentCache.put(PERSISTED_REGISTRY_ENVIRONMENTS, networkID, environments);
+    }
+    return serverEnvironment;
+  }
+
+  // null if the environments contain no REST environment with URLs and method
+  private ServerEnvironment toServerEnvironment(List<RegistryEnvironment> environments) throws ResolutionException {
     ArrayList<Server> urlArray = new ArrayList<>();
     String method = null;
 
-    for (JsonNode environment : environments) {
-      String type = environment.get(REGISTRY_TYPE).textValue();
-      switch (type) {
+    for (RegistryEnvironment environment : environments) {
+      RegistryEnvironment.Metadata metadata = environment.getMetadata();
+      switch (String.valueOf(environment.getType())) {
         case REGISTRY_TYPE_REST:
-          JsonNode urls = environment
-              .get(REGISTRY_METADATA)
-              .get(REGISTRY_URLS);
-          for (JsonNode url : urls) {
-            URL aURL = getURL(url.textValue());
-            urlArray.add(new Server(url.textValue(), aURL.getPort()));
+          if (metadata == null || metadata.getUrls() == null) {
+            break;
+          }
+          for (String url : metadata.getUrls()) {
+            URL aURL = getURL(url);
+            urlArray.add(new Server(url, aURL.getPort()));
           }
-          method = environment
-              .get(REGISTRY_METADATA)
-              .get(REGISTRY_METHOD).textValue();
+          method = metadata.getMethod();
           break;
       }
     }
 
     if (method == null || urlArray.isEmpty()) {
-      String message = this.messageUtils.formatMessage("COULD_NOT_RESOLVE_DID_NETWORK_URL_FROM_REGISTRY_RESPONSE", response);
-      log.error(message);
-      throw new ResolutionException(message);
+      return null;
     }
 
-    staticServerList = Boolean.FALSE;
-
-    return new ServerEnvironment(urlArray, method, staticServerList);
+    return new ServerEnvironment(urlArray, method, Boolean.FALSE);
   }
 
   private URL getURL(String urlString) throws ResolutionException {
@@ -345,90 +1016,124 @@ public class DidHpassDriver implements Driver {
     return url;
   }
 
-  private JsonNode fetchDidFromBlockchainNetwork(ServerEnvironment serverEnvironment, String identifier) throws ResolutionException {
-    JsonNode response;
+  private CompletableFuture<DidResponse> fetchDidFromBlockchainNetwork(ServerEnvironment serverEnvironment, String identifier,
+      CachedResolution expiredResolution, Deadline deadline) {
     HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
+    if (expiredResolution != null) {
+      if (expiredResolution.getEntityTag() != null) {
+        requestBuilder.setHeader("If-None-Match", expiredResolution.getEntityTag());
+      }
+      if (expiredResolution.getLastModified() != null) {
+        requestBuilder.setHeader("If-Modified-Since", expiredResolution.getLastModified());
+      }
+    }
+    CompletableFuture<HttpRequest.Builder> authenticatedRequestBuilder;
     RestClientLoadBalancer loadBalancer;
 
     if (serverEnvironment.isStatic()) {
       loadBalancer = this.loadBalancerForNetwork;
     } else {
-      loadBalancer = new RestClientLoadBalancer(this.httpClient, this.messageUtils, serverEnvironment.getUrlList());
-      String message = this.messageUtils.formatMessage("INITIALIZE_DYNAMIC_NETWORK_LOAD_BALANCER", loadBalancer.getAllServers());
-      log.info(message);
+      loadBalancer = this.dynamicLoadBalancers.getLoadBalancer(serverEnvironment.getUrlList());
     }
 
     switch (serverEnvironment.getMethod()) {
       case REGISTRY_METHOD_GET:
         requestBuilder.setHeader("Content-Type", "application/json");
-        requestBuilder = appIdClient.setAuthenticationHeader(requestBuilder);
+        authenticatedRequestBuilder = appIdClient.setAuthenticationHeaderAsync(requestBuilder, deadline);
         break;
       default:
         String message = this.messageUtils.formatMessage("NO_VALID_HTTP_METHOD_FOUND_IN_REGISTRY_FOR_URL", serverEnvironment.getUrlList());
         log.error(message);
-        throw new ResolutionException(message);
+        return CompletableFuture.failedFuture(new ResolutionException(message));
     }
 
+    return this.metrics.time(DriverMetrics.Stage.DID_NETWORK, authenticatedRequestBuilder.thenCompose(builder -> loadBalancer
+        .makeRequestWithRetryAsync(builder, identifier, this.responseBodyHandler, deadline)
+        .handle((httpResponse, error) -> {
+          try {
+            if (error == null && expiredResolution != null && httpResponse.statusCode() == 304) {
+              return DidResponse.NOT_MODIFIED;
+            }
+            HealthAuthorityPayload didPayload = readDidBody(httpResponse, error, identifier);
+            return new DidResponse(didPayload, httpResponse.headers().firstValue("ETag").orElse(null),
+                httpResponse.headers().firstValue("Last-Modified").orElse(null));
+          } catch (ResolutionException e) {
+            throw FutureUtils.wrap(e);
+          }
+        })));
+  }
+
+  // the updated or created date of the payload as HTTP date, for networks that send no validators of their own
+  private static String getLastModified(HealthAuthorityPayload didPayload) {
+    String updated = HttpCaching.toHttpDate(didPayload.getUpdated());
+    return updated != null ? updated : HttpCaching.toHttpDate(didPayload.getCreated());
+  }
+
+  private HealthAuthorityPayload readDidBody(HttpResponse<byte[]> httpResponse, Throwable error, String identifier)
+      throws ResolutionException {
     try {
-      HttpResponse<String> httpResponse = loadBalancer.makeRequestWithRetry(requestBuilder, identifier);
+      if (error != null) {
+        throw serverRequestUnsuccessful(error);
+      }
 
       if (httpResponse.statusCode() / 100 != 2) {
         String message = this.messageUtils
             .formatMessage("COULD_NOT_RETRIEVE_VALID_HTTP_RESPONSE_FROM_DID_NETWORK", httpResponse.uri(), httpResponse.statusCode());
         log.error(message);
-        throw new ResolutionException(message);
+        throw isNotFound(httpResponse.statusCode()) ? new DefinitiveResolutionException(message) : new ResolutionException(message);
       }
-      response = this.jsonUtils.retrieveBodyAsJsonObject(httpResponse);
+      long parseStart = System.nanoTime();
+      HealthAuthorityPayload didPayload = this.jsonUtils.retrieveBodyPath(httpResponse, this.healthAuthorityReader, DID_PAYLOAD);
+      this.metrics.recordLatency(DriverMetrics.Stage.PARSE, parseStart, false);
+      return didPayload;
     } catch (Exception e) {
       String message = this.messageUtils.formatMessage("COULD_NOT_FETCH_DID_FROM_NETWORK_FOR_IDENTIFIER", identifier, e.getMessage());
       log.error(message);
-      throw new ResolutionException(message, e);
+      throw withContext(message, e);
     }
-    return response;
   }
 
-  private void checkIfIdentifierIsWellFormed(String identifier) throws ResolutionException {
-    if (!DID_HPASS_PATTERN.matcher(identifier).matches()) {
-      String message = this.messageUtils.formatMessage("IDENTIFIER_IS_INVALID", identifier);
-      log.error(message);
-      throw new ResolutionException(message);
-    }
+  private ResolutionException serverRequestUnsuccessful(Throwable error) {
+    Throwable cause = FutureUtils.unwrap(error);
+    String message = this.messageUtils.formatMessage("SERVER_REQUEST_UNSUCCESSFUL", cause.getMessage());
+    log.error(message);
+    return new ResolutionException(message, cause);
   }
 
-  private boolean isValidFormat(String value) {
-    return DID_DATE_TIME_PATTERN.matcher(value).matches();
+  private String getNetworkID(String identifier) {
+    int separator = identifier.lastIndexOf(":");
+    return separator < 0 ? identifier : identifier.substring(0, separator);
+  }
+
+  void checkIfIdentifierIsWellFormed(String identifier) throws ResolutionException {
+    // garbage identifiers are cheap to reject: no stack trace and no error log for what is a client mistake
+    if (!IdentifierValidator.isWellFormedIdentifier(identifier)) {
+      String message = this.messageUtils.formatMessage("IDENTIFIER_IS_INVALID", identifier);
+      log.debug(message);
+      throw new IdentifierValidator.InvalidIdentifierException(message);
+    }
   }
 
-  private Map<String, Object> getDidDocumentMetadata(JsonNode didPayload) {
+  Map<String, Object> getDidDocumentMetadata(HealthAuthorityPayload didPayload) {
     Map<String, Object> methodMetadata = new LinkedHashMap<String, Object>();
 
     // created/updated dateTime be a string formatted as an XML Datetime normalized to UTC 00:00:00 and without sub-second decimal precision. For example: 2020-12-20T19:17:47Z.
     String key = DID_CREATED;
-    String created = null;
-    JsonNode value = didPayload.get(key);
-    if (value != null) {
-      created = value.textValue();
-    }
+    String created = didPayload.getCreated();
 
-    if (isValidFormat(created)) {
+    if (IdentifierValidator.isValidDateTime(created)) {
       methodMetadata.put(key, created);
     } else {
-      String message = this.messageUtils.formatMessage("DATE_IS_INVALID_OR_INCORRECTLY_FORMATTED_NOT_ADDED_TO_METADATA", key, created);
-      log.warn(message);
+      this.messageUtils.warn(log, "DATE_IS_INVALID_OR_INCORRECTLY_FORMATTED_NOT_ADDED_TO_METADATA", key, created);
     }
 
     key = DID_UPDATED;
-    String updated = null;
-    value = didPayload.get(key);
-    if (value != null) {
-      updated = value.textValue();
-    }
+    String updated = didPayload.getUpdated();
 
-    if (isValidFormat(updated)) {
+    if (IdentifierValidator.isValidDateTime(updated)) {
       methodMetadata.put(key, updated);
     } else {
-      String message = this.messageUtils.formatMessage("DATE_IS_INVALID_OR_INCORRECTLY_FORMATTED_NOT_ADDED_TO_METADATA", key, updated);
-      log.warn(message);
+      this.messageUtils.warn(log, "DATE_IS_INVALID_OR_INCORRECTLY_FORMATTED_NOT_ADDED_TO_METADATA", key, updated);
     }
     return methodMetadata;
   }
@@ -436,4 +1141,35 @@ public class DidHpassDriver implements Driver {
   private boolean isNetworksRegistryEnabled() throws ResolutionException {
     return this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED).equals("true");
   }
+
+  private static final class DidResponse {
+
+    private static final DidResponse NOT_MODIFIED = new DidResponse(null, null, null);
+
+    private final HealthAuthorityPayload didPayload;
+    private final String entityTag;
+    private final String lastModified;
+
+    private DidResponse(HealthAuthorityPayload didPayload, String entityTag, String lastModified) {
+      this.didPayload = didPayload;
+      this.entityTag = entityTag;
+      this.lastModified = lastModified;
+    }
+
+    private boolean isNotModified() {
+      return this == NOT_MODIFIED;
+    }
+
+    private HealthAuthorityPayload getDidPayload() {
+      return this.didPayload;
+    }
+
+    private String getEntityTag() {
+      return this.entityTag;
+    }
+
+    private String getLastModified() {
+      return this.lastModified;
+    }
+  }
 }
@@ -22,4 +22,37 @@ public final class EnvironmentVariables {
   public static final String UNIRESOLVER_DRIVER_USER = "UNIRESOLVER_DRIVER_USER";
   public static final String UNIRESOLVER_DRIVER_PASSWORD = "UNIRESOLVER_DRIVER_PASSWORD";
   public static final String UNIRESOLVER_DRIVER_AUTH_LOGIN_URL = "UNIRESOLVER_DRIVER_AUTH_LOGIN_URL";
+  public static final String UNIRESOLVER_DRIVER_CACHE_ENABLED = "UNIRESOLVER_DRIVER_CACHE_ENABLED";
+  public static final String UNIRESOLVER_DRIVER_CACHE_MAX_SIZE = "UNIRESOLVER_DRIVER_CACHE_MAX_SIZE";
+  public static final String UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS = "UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE = "UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE";
+  public static final String UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS = "UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE = "UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE";
+  public static final String UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS = "UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS = "UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS = "UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY = "UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY";
+  public static final String UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS = "UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS";
+  public static final String UNIRESOLVER_DRIVER_HEDGE_PERCENTILE = "UNIRESOLVER_DRIVER_HEDGE_PERCENTILE";
+  public static final String UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD";
+  public static final String UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS = "UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS = "UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS";
+  public static final String UNIRESOLVER_DRIVER_BATCH_MAX_SIZE = "UNIRESOLVER_DRIVER_BATCH_MAX_SIZE";
+  public static final String UNIRESOLVER_DRIVER_BATCH_CONCURRENCY = "UNIRESOLVER_DRIVER_BATCH_CONCURRENCY";
+  public static final String UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES = "UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES";
+  public static final String UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE = "UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE";
+  public static final String UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES = "UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES";
+  public static final String UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL = "UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL";
+  public static final String UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS = "UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS";
+  public static final String UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS = "UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS";
+  public static final String UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS = "UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS";
+  public static final String UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS = "UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS";
+  public static final String UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO = "UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO";
+  public static final String UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE = "UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE";
+  public static final String UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL = "UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL";
+  public static final String UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX = "UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX";
+  public static final String UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT = "UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT";
+  public static final String UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE = "UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE";
+  public static final String UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS = "UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS";
+  public static final String UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS = "UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS";
 }
@@ -28,4 +28,7 @@ public final class ResolverKeys {
 
   public static final String DID_P_256 = "P-256";
   public static final String DID_JSON_WEB_KEY_2020 = "JsonWebKey2020";
+
+  public static final String RESOLUTION_OPTION_TIMEOUT_MILLIS = "timeoutMillis";
+  public static final String RESOLUTION_OPTION_ACCEPT = "accept";
 }
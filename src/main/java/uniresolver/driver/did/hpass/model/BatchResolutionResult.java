@@ -0,0 +1,53 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.model;
+
+import uniresolver.result.ResolveDataModelResult;
+
+public class BatchResolutionResult {
+
+  private final String identifier;
+  private final ResolveDataModelResult resolveResult;
+  private final String error;
+
+  private BatchResolutionResult(String identifier, ResolveDataModelResult resolveResult, String error) {
+    this.identifier = identifier;
+    this.resolveResult = resolveResult;
+    this.error = error;
+  }
+
+  public static BatchResolutionResult success(String identifier, ResolveDataModelResult resolveResult) {
+    return new BatchResolutionResult(identifier, resolveResult, null);
+  }
+
+  public static BatchResolutionResult failure(String identifier, String error) {
+    return new BatchResolutionResult(identifier, null, error);
+  }
+
+  public String getIdentifier() {
+    return this.identifier;
+  }
+
+  public ResolveDataModelResult getResolveResult() {
+    return this.resolveResult;
+  }
+
+  public String getError() {
+    return this.error;
+  }
+
+  public boolean isSuccessful() {
+    return this.error == null;
+  }
+}
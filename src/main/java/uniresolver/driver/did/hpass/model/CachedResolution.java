@@ -0,0 +1,49 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.model;
+
+import uniresolver.result.ResolveDataModelResult;
+
+/**
+ * A resolved DID together with the validators of the health-authority response it was built from, used to revalidate
+ * the cached result with a conditional request.
+ */
+public class CachedResolution {
+
+  private final ResolveDataModelResult resolveResult;
+  private final String entityTag;
+  private final String lastModified;
+
+  public CachedResolution(ResolveDataModelResult resolveResult, String entityTag, String lastModified) {
+    this.resolveResult = resolveResult;
+    this.entityTag = entityTag;
+    this.lastModified = lastModified;
+  }
+
+  public ResolveDataModelResult getResolveResult() {
+    return this.resolveResult;
+  }
+
+  public String getEntityTag() {
+    return this.entityTag;
+  }
+
+  public String getLastModified() {
+    return this.lastModified;
+  }
+
+  public boolean isRevalidatable() {
+    return this.entityTag != null || this.lastModified != null;
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.model;
+
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CONTROLLER;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CREATED;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_ID;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PUBLIC_KEY;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_PUBLIC_KEY_JWK;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_TYPE;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_UPDATED;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code payload} of a health-authority response, only the fields used for the DID document are bound.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HealthAuthorityPayload {
+
+  @JsonProperty(DID_PUBLIC_KEY)
+  private List<PublicKey> publicKeys;
+
+  @JsonProperty(DID_CREATED)
+  private String created;
+
+  @JsonProperty(DID_UPDATED)
+  private String updated;
+
+  public List<PublicKey> getPublicKeys() {
+    return this.publicKeys;
+  }
+
+  public String getCreated() {
+    return this.created;
+  }
+
+  public String getUpdated() {
+    return this.updated;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class PublicKey {
+
+    @JsonProperty(DID_ID)
+    private String id;
+
+    @JsonProperty(DID_TYPE)
+    private String type;
+
+    @JsonProperty(DID_CONTROLLER)
+    private Object controller;
+
+    @JsonProperty(DID_PUBLIC_KEY_JWK)
+    private Map<String, Object> publicKeyJwk;
+
+    public String getId() {
+      return this.id;
+    }
+
+    public String getType() {
+      return this.type;
+    }
+
+    public Object getController() {
+      return this.controller;
+    }
+
+    public Map<String, Object> getPublicKeyJwk() {
+      return this.publicKeyJwk;
+    }
+  }
+}
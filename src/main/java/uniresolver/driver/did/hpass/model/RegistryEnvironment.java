@@ -0,0 +1,62 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.model;
+
+import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_METADATA;
+import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_METHOD;
+import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_TYPE;
+import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_URLS;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * One entry of {@code payload.environments} in a registry response.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RegistryEnvironment {
+
+  @JsonProperty(REGISTRY_TYPE)
+  private String type;
+
+  @JsonProperty(REGISTRY_METADATA)
+  private Metadata metadata;
+
+  public String getType() {
+    return this.type;
+  }
+
+  public Metadata getMetadata() {
+    return this.metadata;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class Metadata {
+
+    @JsonProperty(REGISTRY_URLS)
+    private List<String> urls;
+
+    @JsonProperty(REGISTRY_METHOD)
+    private String method;
+
+    public List<String> getUrls() {
+      return this.urls;
+    }
+
+    public String getMethod() {
+      return this.method;
+    }
+  }
+}
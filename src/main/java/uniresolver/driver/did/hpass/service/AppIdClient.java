@@ -26,26 +26,42 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
-import java.io.IOException;
+import java.io.Closeable;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uniresolver.ResolutionException;
+import uniresolver.driver.did.hpass.utils.DaemonThreadFactory;
+import uniresolver.driver.did.hpass.utils.Deadline;
+import uniresolver.driver.did.hpass.utils.DriverMetrics;
+import uniresolver.driver.did.hpass.utils.FutureUtils;
 import uniresolver.driver.did.hpass.utils.JSONUtils;
 import uniresolver.driver.did.hpass.utils.MessageUtils;
 import uniresolver.driver.did.hpass.utils.PropertyUtils;
+import uniresolver.driver.did.hpass.utils.SingleFlight;
 
-public class AppIdClient {
+public class AppIdClient implements Closeable {
 
   public static final String ACCESS_TOKEN = "access_token";
   public static final Integer TIME_BUFFER_MINUTES = 5;
+  private static final Duration TIME_BUFFER = Duration.ofMinutes(TIME_BUFFER_MINUTES);
+  // background refresh starts this long before the token enters the buffer window
+  private static final Duration REFRESH_AHEAD = Duration.ofMinutes(1);
+  // after a failed background refresh, requests in the buffer window do not start another login before this
+  private static final Duration REFRESH_RETRY_INTERVAL = Duration.ofSeconds(30);
+  private static final String LOGIN_KEY = "login";
   private static final Logger log = LoggerFactory.getLogger(AppIdClient.class);
   private final PropertyUtils propertyUtils;
   private final JSONUtils jsonUtils;
@@ -53,90 +69,221 @@ public class AppIdClient {
   private final ObjectMapper objectMapper;
   private final Map<String, Object> properties;
   private final MessageUtils messageUtils;
-  private String authJWT = null;
+  private final DriverMetrics metrics;
+  private final SingleFlight<String, AuthToken> loginsInFlight = new SingleFlight<>();
+  private final ScheduledThreadPoolExecutor refreshScheduler;
+  private final AtomicBoolean backgroundRefreshPending = new AtomicBoolean();
+  private volatile Instant nextRefreshAttempt = Instant.MIN;
+  private volatile AuthToken authToken = null;
 
   public AppIdClient(Map<String, Object> properties,
       HttpClient httpClient,
       ObjectMapper objectMapper,
       JSONUtils jsonUtils,
       PropertyUtils propertyUtils,
-      MessageUtils messageUtils) {
+      MessageUtils messageUtils,
+      DriverMetrics metrics) {
     this.properties = properties;
     this.httpClient = httpClient;
     this.objectMapper = objectMapper;
     this.jsonUtils = jsonUtils;
     this.propertyUtils = propertyUtils;
     this.messageUtils = messageUtils;
+    this.metrics = metrics;
+    this.refreshScheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("hpass-appid-refresh"));
+    this.refreshScheduler.setRemoveOnCancelPolicy(true);
   }
 
   public String authenticate() throws ResolutionException {
-    HttpRequest request;
+    return FutureUtils.await(authenticateAsync());
+  }
+
+  public CompletableFuture<String> authenticateAsync() {
+    return authenticateAsync(Deadline.none());
+  }
 
+  /**
+   * Returns a valid JWT, a login needed for it only gets the time left until the deadline.
+   */
+  public CompletableFuture<String> authenticateAsync(Deadline deadline) {
     // check cached JWT token
-    if (authJWT != null) {
-      String tokenOnly = authJWT.substring(0, authJWT.lastIndexOf('.') + 1);
-      try {
-        Date expirationTime = ((Claims) Jwts.parserBuilder().build().parse(tokenOnly).getBody()).getExpiration();
-        LocalDateTime currentDateTimePlusBuffer = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusMinutes(TIME_BUFFER_MINUTES);
-        LocalDateTime expirationDateTime = new java.sql.Timestamp(expirationTime.getTime()).toLocalDateTime();
-        if (expirationDateTime.compareTo(currentDateTimePlusBuffer) > 0) {
-          return authJWT;
-        }
-      } catch (ExpiredJwtException | MalformedJwtException | SignatureException e) {
-        String message = this.messageUtils.formatMessage("EXPIRED_OR_INVALID_JWT_TOKEN", e.getMessage());
-        log.info(message);
-      }
+    AuthToken token = this.authToken;
+    Instant now = Instant.now();
+    if (token != null && token.expiresAt.isAfter(now.plus(TIME_BUFFER))) {
+      return CompletableFuture.completedFuture(token.jwt);
+    }
+    if (token != null && token.expiresAt.isAfter(now)) {
+      // still usable, renew it without letting the request wait for the login
+      refreshInBackground();
+      return CompletableFuture.completedFuture(token.jwt);
     }
-    // request new JWT token
-    Map<String, String> requestBodyMap = Map.of(
-        "email", this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_USER),
-        "password", this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_PASSWORD));
 
-    String requestBody = null;
+    // no usable token, all waiting requests share one login request
+    return this.metrics.time(DriverMetrics.Stage.AUTHENTICATION, this.loginsInFlight.execute(LOGIN_KEY, () -> login(deadline)))
+        .thenApply(newToken -> newToken.jwt);
+  }
+
+  /**
+   * Stops the background token refresh.
+   */
+  @Override
+  public void close() {
+    this.refreshScheduler.shutdownNow();
+  }
+
+  private void refreshInBackground() {
+    if (Instant.now().isBefore(this.nextRefreshAttempt) || !this.backgroundRefreshPending.compareAndSet(false, true)) {
+      return;
+    }
     try {
-      requestBody = this.objectMapper.writeValueAsString(requestBodyMap);
-    } catch (JsonProcessingException e) {
-      String message = this.messageUtils.formatMessage("COULD_NOT_WRITE_JSON_TO_STRING", e.getMessage());
-      log.error(message);
-      throw new ResolutionException(message, e);
+      this.refreshScheduler.execute(this::runBackgroundRefresh);
+    } catch (RejectedExecutionException e) {
+      // closed, the token is renewed on demand
+      this.backgroundRefreshPending.set(false);
     }
+  }
+
+  private void scheduleBackgroundRefresh(Instant expiresAt) {
+    Duration delay = Duration.between(Instant.now(), expiresAt.minus(TIME_BUFFER).minus(REFRESH_AHEAD));
+    if (delay.isNegative() || delay.isZero() || !this.backgroundRefreshPending.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      this.refreshScheduler.schedule(this::runBackgroundRefresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      this.backgroundRefreshPending.set(false);
+    }
+  }
 
-    request = HttpRequest.newBuilder()
-        .uri(URI.create(this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_AUTH_LOGIN_URL)))
-        .header("Content-Type", "application/json")
-        .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-        .build();
+  private void runBackgroundRefresh() {
+    // a refresh that failed after this one was queued is not retried before its interval
+    if (Instant.now().isBefore(this.nextRefreshAttempt)) {
+      this.backgroundRefreshPending.set(false);
+      return;
+    }
+    // the refresh stays pending until the login completed, requests in the buffer window meanwhile do not queue another one
+    this.loginsInFlight.execute(LOGIN_KEY, () -> login(Deadline.none())).whenComplete((token, error) -> {
+      if (error != null) {
+        this.nextRefreshAttempt = Instant.now().plus(REFRESH_RETRY_INTERVAL);
+        this.messageUtils.warn(log, "BACKGROUND_TOKEN_REFRESH_FAILED", String.valueOf(REFRESH_RETRY_INTERVAL.toSeconds()),
+            FutureUtils.unwrap(error).getMessage());
+      }
+      this.backgroundRefreshPending.set(false);
+      if (token != null) {
+        scheduleBackgroundRefresh(token.expiresAt);
+      }
+    });
+  }
+
+  private CompletableFuture<AuthToken> login(Deadline deadline) {
+    HttpRequest request;
 
-    JsonNode response;
     try {
-      HttpResponse<String> httpResponse = this.httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-      if (httpResponse.statusCode() / 100 != 2) {
-        String message = this.messageUtils
-            .formatMessage("COULD_NOT_RETRIEVE_VALID_HTTP_RESPONSE", httpResponse.uri(), httpResponse.statusCode());
+      // request new JWT token
+      Map<String, String> requestBodyMap = Map.of(
+          "email", this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_USER),
+          "password", this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_PASSWORD));
+
+      String requestBody = null;
+      try {
+        requestBody = this.objectMapper.writeValueAsString(requestBodyMap);
+      } catch (JsonProcessingException e) {
+        String message = this.messageUtils.formatMessage("COULD_NOT_WRITE_JSON_TO_STRING", e.getMessage());
         log.error(message);
-        throw new ResolutionException(message);
+        throw new ResolutionException(message, e);
       }
 
-      response = this.jsonUtils.retrieveBodyAsJsonObject(httpResponse);
-    } catch (InterruptedException | IOException e) {
-      String message = this.messageUtils.formatMessage("COULD_NOT_GET_RESPONSE", e.getMessage());
+      request = deadline.applyTo(HttpRequest.newBuilder())
+          .uri(URI.create(this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_AUTH_LOGIN_URL)))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+          .build();
+    } catch (ResolutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    return this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        .handle((httpResponse, error) -> {
+          if (error != null) {
+            Throwable cause = FutureUtils.unwrap(error);
+            String message = this.messageUtils.formatMessage("COULD_NOT_GET_RESPONSE", cause.getMessage());
+            log.error(message);
+            throw FutureUtils.wrap(new ResolutionException(message, cause));
+          }
+          try {
+            return readToken(httpResponse);
+          } catch (ResolutionException e) {
+            throw FutureUtils.wrap(e);
+          }
+        });
+  }
+
+  private AuthToken readToken(HttpResponse<String> httpResponse) throws ResolutionException {
+    if (httpResponse.statusCode() / 100 != 2) {
+      String message = this.messageUtils
+          .formatMessage("COULD_NOT_RETRIEVE_VALID_HTTP_RESPONSE", httpResponse.uri(), httpResponse.statusCode());
       log.error(message);
-      throw new ResolutionException(message, e);
+      throw new ResolutionException(message);
     }
+
+    JsonNode response = this.jsonUtils.retrieveBodyAsJsonObject(httpResponse);
     if (response == null || response.size() == 0 || !response.hasNonNull(ACCESS_TOKEN)) {
       String message = this.messageUtils.formatMessage("COULD_NOT_GET_RESPONSE", "invalid login data");
       log.error(message);
       throw new ResolutionException(message);
     }
-    authJWT = response.get(ACCESS_TOKEN).asText();
-    return authJWT;
+
+    String jwt = response.get(ACCESS_TOKEN).asText();
+    AuthToken token = new AuthToken(jwt, getExpirationTime(jwt));
+    this.authToken = token;
+    scheduleBackgroundRefresh(token.expiresAt);
+    return token;
+  }
+
+  private Instant getExpirationTime(String jwt) {
+    // the expiry is decoded once per token, the signature is not verified by the driver
+    String tokenOnly = jwt.substring(0, jwt.lastIndexOf('.') + 1);
+    try {
+      Date expirationTime = ((Claims) Jwts.parserBuilder().build().parse(tokenOnly).getBody()).getExpiration();
+      return expirationTime == null ? Instant.EPOCH : expirationTime.toInstant();
+    } catch (ExpiredJwtException e) {
+      this.messageUtils.info(log, "EXPIRED_OR_INVALID_JWT_TOKEN", e.getMessage());
+      Date expirationTime = e.getClaims().getExpiration();
+      return expirationTime == null ? Instant.EPOCH : expirationTime.toInstant();
+    } catch (MalformedJwtException | SignatureException | IllegalArgumentException e) {
+      this.messageUtils.info(log, "EXPIRED_OR_INVALID_JWT_TOKEN", e.getMessage());
+      return Instant.EPOCH;
+    }
   }
 
   public HttpRequest.Builder setAuthenticationHeader(HttpRequest.Builder builder) throws ResolutionException {
-    if (this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_AUTH_ENABLED).equals("false")) {
-      return builder;
+    return FutureUtils.await(setAuthenticationHeaderAsync(builder));
+  }
+
+  public CompletableFuture<HttpRequest.Builder> setAuthenticationHeaderAsync(HttpRequest.Builder builder) {
+    return setAuthenticationHeaderAsync(builder, Deadline.none());
+  }
+
+  public CompletableFuture<HttpRequest.Builder> setAuthenticationHeaderAsync(HttpRequest.Builder builder, Deadline deadline) {
+    try {
+      if (this.propertyUtils.getPropertyByKey(this.properties, UNIRESOLVER_DRIVER_AUTH_ENABLED).equals("false")) {
+        return CompletableFuture.completedFuture(builder);
+      }
+    } catch (ResolutionException e) {
+      return CompletableFuture.failedFuture(e);
     }
 
-    return builder.setHeader("Authorization", "Bearer " + this.authenticate());
+    return authenticateAsync(deadline).thenApply(jwt -> builder.setHeader("Authorization", "Bearer " + jwt));
+  }
+
+  private static final class AuthToken {
+
+    private final String jwt;
+    private final Instant expiresAt;
+
+    private AuthToken(String jwt, Instant expiresAt) {
+      this.jwt = jwt;
+      this.expiresAt = expiresAt;
+    }
   }
 }
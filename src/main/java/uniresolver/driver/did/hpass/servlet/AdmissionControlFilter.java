@@ -0,0 +1,211 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import java.io.IOException;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uniresolver.driver.Driver;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.did.hpass.utils.AdmissionController;
+import uniresolver.driver.did.hpass.utils.MessageUtils;
+import uniresolver.driver.servlet.InitServlet;
+
+/**
+ * Sheds resolve requests while the driver is saturated, see {@link AdmissionController}. Requests that find no free
+ * slot wait asynchronously without holding a container thread and are dispatched again once admitted. Rejected
+ * requests get a 503 with {@code Retry-After} long before an upstream timeout would have cancelled them.
+ *
+ * <p>Only mapped in front of the resolve servlet, the properties and metrics endpoints are never queued.
+ */
+public class AdmissionControlFilter implements Filter {
+
+  private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+  private static final String ADMISSION_ATTRIBUTE = AdmissionControlFilter.class.getName() + ".admission";
+  private final MessageUtils messageUtils = new MessageUtils(ResourceBundle.getBundle("Messages"));
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+    Driver driver = InitServlet.getDriver();
+    AdmissionController admissionController = driver instanceof DidHpassDriver ? ((DidHpassDriver) driver).getAdmissionController() : null;
+    if (admissionController == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    Admission admission = (Admission) request.getAttribute(ADMISSION_ATTRIBUTE);
+    if (request.getDispatcherType() == DispatcherType.ASYNC && admission != null) {
+      // dispatched again after waiting in the queue, the slot was handed over on admission
+      process(request, response, chain, admission);
+      return;
+    }
+
+    if (admissionController.tryAcquire()) {
+      process(request, response, chain, new Admission(admissionController));
+      return;
+    }
+
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(((DidHpassDriver) driver).getResolutionTimeoutMillis());
+    AtomicReference<AdmissionController.Ticket> waiting = new AtomicReference<>();
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onTimeout(AsyncEvent event) {
+        // a request that waited for its whole resolution timeout is no longer worth processing
+        AdmissionController.Ticket ticket = waiting.get();
+        if (ticket != null && admissionController.cancel(ticket)) {
+          try {
+            sendRejection((HttpServletRequest) request, (HttpServletResponse) response, admissionController.getRetryAfterSeconds());
+          } finally {
+            asyncContext.complete();
+          }
+        }
+      }
+
+      @Override
+      public void onComplete(AsyncEvent event) {
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        AdmissionController.Ticket ticket = waiting.get();
+        if (ticket != null) {
+          admissionController.cancel(ticket);
+        }
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+
+    AdmissionController.Ticket ticket = admissionController.enqueue(new AdmissionController.Waiter() {
+      @Override
+      public void admit() {
+        request.setAttribute(ADMISSION_ATTRIBUTE, new Admission(admissionController));
+        try {
+          asyncContext.dispatch();
+        } catch (IllegalStateException e) {
+          // the request timed out or failed while it was admitted, its slot goes to the next waiting request
+          request.removeAttribute(ADMISSION_ATTRIBUTE);
+          admissionController.release();
+          AdmissionControlFilter.this.messageUtils.debug(log, "RESOLVE_RESPONSE_NOT_WRITTEN",
+              ((HttpServletRequest) request).getPathInfo(), e.getMessage());
+        }
+      }
+
+      @Override
+      public void reject(long retryAfterSeconds) {
+        try {
+          sendRejection((HttpServletRequest) request, (HttpServletResponse) response, retryAfterSeconds);
+        } finally {
+          asyncContext.complete();
+        }
+      }
+    });
+    if (ticket == null) {
+      try {
+        sendRejection((HttpServletRequest) request, (HttpServletResponse) response, admissionController.getRetryAfterSeconds());
+      } finally {
+        asyncContext.complete();
+      }
+      return;
+    }
+    waiting.set(ticket);
+  }
+
+  private static void process(ServletRequest request, ServletResponse response, FilterChain chain, Admission admission)
+      throws IOException, ServletException {
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        // the resolve servlet answers asynchronously, the slot is held until its response is complete
+        request.getAsyncContext().addListener(new AsyncListener() {
+          @Override
+          public void onComplete(AsyncEvent event) {
+            admission.release();
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+            admission.release();
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+          }
+        });
+      } else {
+        admission.release();
+      }
+    }
+  }
+
+  private void sendRejection(HttpServletRequest request, HttpServletResponse response, long retryAfterSeconds) {
+    String message = this.messageUtils.formatMessage("RESOLVE_REQUEST_REJECTED", request.getPathInfo(),
+        String.valueOf(retryAfterSeconds));
+    log.warn(message);
+    try {
+      response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+    } catch (IOException | IllegalStateException e) {
+      this.messageUtils.debug(log, "RESOLVE_RESPONSE_NOT_WRITTEN", request.getPathInfo(), e.getMessage());
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  private static final class Admission {
+
+    private final AdmissionController admissionController;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private final long startNanos = System.nanoTime();
+
+    private Admission(AdmissionController admissionController) {
+      this.admissionController = admissionController;
+    }
+
+    private void release() {
+      if (this.released.compareAndSet(false, true)) {
+        this.admissionController.release(System.nanoTime() - this.startNanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uniresolver.ResolutionException;
+import uniresolver.driver.Driver;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.did.hpass.model.BatchResolutionResult;
+import uniresolver.driver.did.hpass.utils.MessageUtils;
+import uniresolver.driver.servlet.InitServlet;
+
+/**
+ * Resolves several DIDs in one request. Expects a JSON body {@code {"identifiers": ["did:hpass:...", ...]}} and answers
+ * with one result or error per identifier, in request order. Request parameters are passed to the driver as resolution
+ * options for all identifiers.
+ */
+public class BatchResolveServlet extends HttpServlet {
+
+  public static final String BATCH_IDENTIFIERS = "identifiers";
+  public static final String BATCH_RESULTS = "results";
+  public static final String BATCH_IDENTIFIER = "identifier";
+  public static final String BATCH_RESOLVE_RESULT = "resolveResult";
+  public static final String BATCH_ERROR = "error";
+  private static final Logger log = LoggerFactory.getLogger(BatchResolveServlet.class);
+  private static final String MEDIA_TYPE_JSON = "application/json";
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final MessageUtils messageUtils = new MessageUtils(ResourceBundle.getBundle("Messages"));
+
+  @Override
+  protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Driver driver = InitServlet.getDriver();
+    if (!(driver instanceof DidHpassDriver)) {
+      String message = this.messageUtils.formatMessage("BATCH_RESOLUTION_NOT_AVAILABLE");
+      log.error(message);
+      sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+      return;
+    }
+
+    List<String> identifiers;
+    try {
+      identifiers = readIdentifiers(this.objectMapper.readTree(request.getInputStream()));
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      String message = this.messageUtils.formatMessage("INVALID_BATCH_REQUEST", e.getMessage());
+      log.warn(message);
+      sendError(response, HttpServletResponse.SC_BAD_REQUEST, message);
+      return;
+    }
+
+    List<BatchResolutionResult> results;
+    try {
+      results = ((DidHpassDriver) driver).resolveBatch(identifiers, ResolveServlet.getResolutionOptions(request));
+    } catch (ResolutionException e) {
+      sendError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    ObjectNode body = this.objectMapper.createObjectNode();
+    ArrayNode resultNodes = body.putArray(BATCH_RESULTS);
+    for (BatchResolutionResult result : results) {
+      ObjectNode resultNode = resultNodes.addObject();
+      resultNode.put(BATCH_IDENTIFIER, result.getIdentifier());
+      if (result.isSuccessful()) {
+        resultNode.set(BATCH_RESOLVE_RESULT, this.objectMapper.readTree(result.getResolveResult().toJson()));
+      } else {
+        resultNode.put(BATCH_ERROR, result.getError());
+      }
+    }
+
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(MEDIA_TYPE_JSON);
+    response.setCharacterEncoding("UTF-8");
+    this.objectMapper.writeValue(response.getOutputStream(), body);
+  }
+
+  private List<String> readIdentifiers(JsonNode body) {
+    JsonNode identifierNodes = body == null ? null : body.get(BATCH_IDENTIFIERS);
+    if (identifierNodes == null || !identifierNodes.isArray() || identifierNodes.size() == 0) {
+      throw new IllegalArgumentException(this.messageUtils.formatMessage("MANDATORY_KEY_NOT_FOUND", BATCH_IDENTIFIERS));
+    }
+
+    List<String> identifiers = new ArrayList<>(identifierNodes.size());
+    for (JsonNode identifierNode : identifierNodes) {
+      if (!identifierNode.isTextual()) {
+        throw new IllegalArgumentException(this.messageUtils.formatMessage("ILLEGAL_ARGUMENT", BATCH_IDENTIFIERS, identifierNode));
+      }
+      identifiers.add(identifierNode.textValue());
+    }
+    return identifiers;
+  }
+
+  private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+    ObjectNode body = this.objectMapper.createObjectNode();
+    body.put(BATCH_ERROR, message);
+
+    response.setStatus(status);
+    response.setContentType(MEDIA_TYPE_JSON);
+    response.setCharacterEncoding("UTF-8");
+    this.objectMapper.writeValue(response.getOutputStream(), body);
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import uniresolver.driver.Driver;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.servlet.InitServlet;
+
+/**
+ * Closes the driver when the web application is stopped, so its background threads do not outlive it.
+ */
+public class DriverShutdownListener implements ServletContextListener {
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    // the driver is created by the init servlet
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    Driver driver = InitServlet.getDriver();
+    if (driver instanceof DidHpassDriver) {
+      ((DidHpassDriver) driver).close();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ResourceBundle;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uniresolver.driver.Driver;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.did.hpass.utils.DriverMetrics;
+import uniresolver.driver.did.hpass.utils.MessageUtils;
+import uniresolver.driver.servlet.InitServlet;
+
+/**
+ * Exposes the driver metrics in the Prometheus text format.
+ */
+public class MetricsServlet extends HttpServlet {
+
+  private static final Logger log = LoggerFactory.getLogger(MetricsServlet.class);
+  private final MessageUtils messageUtils = new MessageUtils(ResourceBundle.getBundle("Messages"));
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Driver driver = InitServlet.getDriver();
+    if (!(driver instanceof DidHpassDriver)) {
+      String message = this.messageUtils.formatMessage("METRICS_NOT_AVAILABLE");
+      log.error(message);
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+      return;
+    }
+
+    byte[] body = ((DidHpassDriver) driver).scrapeMetrics().getBytes(StandardCharsets.UTF_8);
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(DriverMetrics.CONTENT_TYPE);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+}
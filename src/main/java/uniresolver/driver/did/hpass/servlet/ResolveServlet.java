@@ -0,0 +1,299 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CREATED;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_UPDATED;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.RESOLUTION_OPTION_ACCEPT;
+
+import foundation.identity.did.DID;
+import foundation.identity.did.parser.ParserException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uniresolver.driver.Driver;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.did.hpass.utils.Deadline;
+import uniresolver.driver.did.hpass.utils.DefinitiveResolutionException;
+import uniresolver.driver.did.hpass.utils.FutureUtils;
+import uniresolver.driver.did.hpass.utils.HttpCaching;
+import uniresolver.driver.did.hpass.utils.IdentifierValidator;
+import uniresolver.driver.did.hpass.utils.MessageUtils;
+import uniresolver.driver.servlet.InitServlet;
+import uniresolver.result.ResolveDataModelResult;
+
+/**
+ * Resolves the DID given in the path. Successful results carry an {@code ETag}, a {@code Last-Modified} date taken from
+ * the updated date of the DID and the configured {@code Cache-Control} directives, conditional requests whose
+ * validators still match are answered with 304.
+ *
+ * <p>Request parameters are passed to the driver as resolution options. The {@code Accept} header selects the
+ * representation: the resolve result by default, or only the DID document for {@code application/did+ld+json} and
+ * {@code application/did+json}.
+ *
+ * <p>Resolutions run asynchronously: the container thread is returned while the driver waits on the registry, AppID and
+ * the DID network, so slow backends do not grow the container thread pool.
+ */
+public class ResolveServlet extends HttpServlet {
+
+  public static final String MEDIA_TYPE_RESOLVE_RESULT = "application/ld+json;profile=\"https://w3id.org/did-resolution\"";
+  public static final String MEDIA_TYPE_DID_LD_JSON = "application/did+ld+json";
+  public static final String MEDIA_TYPE_DID_JSON = "application/did+json";
+  private static final String DID_RESOLUTION_PROFILE = "https://w3id.org/did-resolution";
+  private static final Logger log = LoggerFactory.getLogger(ResolveServlet.class);
+  private static final long ASYNC_TIMEOUT_MARGIN_MILLIS = 1000;
+  private final MessageUtils messageUtils = new MessageUtils(ResourceBundle.getBundle("Messages"));
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Driver driver = InitServlet.getDriver();
+    if (!(driver instanceof DidHpassDriver)) {
+      String message = this.messageUtils.formatMessage("RESOLUTION_NOT_AVAILABLE");
+      log.error(message);
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+      return;
+    }
+
+    String identifier = getIdentifier(request);
+    DID did;
+    try {
+      did = DID.fromString(identifier);
+    } catch (ParserException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    String accept = request.getHeader("Accept");
+    String mediaType = negotiateMediaType(accept);
+    if (mediaType == null) {
+      response.sendError(HttpServletResponse.SC_NOT_ACCEPTABLE, this.messageUtils.formatMessage("REPRESENTATION_NOT_ACCEPTABLE", accept));
+      return;
+    }
+    Map<String, Object> resolutionOptions = getResolutionOptions(request);
+
+    // the request thread is released while the driver waits on the backends, the response is written on completion
+    AsyncContext asyncContext = request.startAsync();
+    // the driver gives up at its deadline, the container timeout only catches a resolution that never completes
+    asyncContext.setTimeout(((DidHpassDriver) driver).getResolutionTimeoutMillis() + ASYNC_TIMEOUT_MARGIN_MILLIS);
+    AtomicBoolean responded = new AtomicBoolean();
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onTimeout(AsyncEvent event) throws IOException {
+        if (responded.compareAndSet(false, true)) {
+          String message = ResolveServlet.this.messageUtils.formatMessage("RESOLVE_REQUEST_TIMED_OUT", identifier);
+          log.warn(message);
+          response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, message);
+          asyncContext.complete();
+        }
+      }
+
+      @Override
+      public void onComplete(AsyncEvent event) {
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+      }
+    });
+
+    CompletableFuture<ResolveDataModelResult> resolution;
+    try {
+      resolution = ((DidHpassDriver) driver).resolveAsync(did, resolutionOptions);
+    } catch (RuntimeException e) {
+      resolution = CompletableFuture.failedFuture(e);
+    }
+    resolution.whenComplete((resolveResult, error) -> {
+      if (!responded.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        Throwable cause = error == null ? null : FutureUtils.unwrap(error);
+        writeResult(request, response, (DidHpassDriver) driver, identifier, mediaType, resolveResult, cause);
+      } catch (IOException e) {
+        this.messageUtils.debug(log, "RESOLVE_RESPONSE_NOT_WRITTEN", identifier, e.getMessage());
+      } finally {
+        asyncContext.complete();
+      }
+    });
+  }
+
+  private void writeResult(HttpServletRequest request, HttpServletResponse response, DidHpassDriver driver, String identifier,
+      String mediaType, ResolveDataModelResult resolveResult, Throwable error) throws IOException {
+    if (error instanceof IdentifierValidator.InvalidIdentifierException) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, error.getMessage());
+      return;
+    }
+    if (error instanceof Deadline.DeadlineExceededException) {
+      this.messageUtils.warn(log, "RESOLVE_REQUEST_FAILED", identifier, error.getMessage());
+      response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, error.getMessage());
+      return;
+    }
+    if (error instanceof DefinitiveResolutionException) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, error.getMessage());
+      return;
+    }
+    if (error != null) {
+      String message = this.messageUtils.formatMessage("RESOLVE_REQUEST_FAILED", identifier, error.getMessage());
+      log.warn(message);
+      response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message);
+      return;
+    }
+
+    boolean documentOnly = !MEDIA_TYPE_RESOLVE_RESULT.equals(mediaType);
+    if (resolveResult == null || documentOnly && resolveResult.getDidDocument() == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, this.messageUtils.formatMessage("NO_RESOLVE_RESULT", identifier));
+      return;
+    }
+
+    String json = documentOnly ? resolveResult.getDidDocument().toJson() : resolveResult.toJson();
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    String entityTag = HttpCaching.entityTag(body);
+    String lastModified = getLastModified(resolveResult);
+    String cacheControl = driver.getCacheControl();
+
+    // the representation depends on the Accept header, caches must not mix them up
+    response.setHeader("Vary", "Accept");
+    response.setHeader("ETag", entityTag);
+    if (lastModified != null) {
+      response.setHeader("Last-Modified", lastModified);
+    }
+    if (!cacheControl.isEmpty()) {
+      response.setHeader("Cache-Control", cacheControl);
+    }
+
+    if (HttpCaching.isNotModified(request.getHeader("If-None-Match"), request.getHeader("If-Modified-Since"), entityTag, lastModified)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(mediaType);
+    response.setCharacterEncoding("UTF-8");
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /**
+   * Returns the request parameters as resolution options, plus the {@code Accept} header as option {@code accept}, like
+   * the resolve servlet of the universal resolver driver.
+   */
+  static Map<String, Object> getResolutionOptions(HttpServletRequest request) {
+    Map<String, Object> resolutionOptions = new HashMap<>();
+    for (Map.Entry<String, String[]> parameter : request.getParameterMap().entrySet()) {
+      if (parameter.getValue() != null && parameter.getValue().length > 0) {
+        resolutionOptions.put(parameter.getKey(), parameter.getValue()[0]);
+      }
+    }
+    String accept = request.getHeader("Accept");
+    if (accept != null) {
+      resolutionOptions.put(RESOLUTION_OPTION_ACCEPT, accept);
+    }
+    return resolutionOptions;
+  }
+
+  /**
+   * Returns the media type of the response with the highest quality in {@code accept}, null if none is acceptable.
+   */
+  static String negotiateMediaType(String accept) {
+    if (accept == null || accept.isBlank()) {
+      return MEDIA_TYPE_RESOLVE_RESULT;
+    }
+
+    String mediaType = null;
+    double mediaTypeQuality = 0;
+    for (String range : accept.split(",")) {
+      String[] parts = range.split(";");
+      double quality = 1;
+      String profile = null;
+      for (int i = 1; i < parts.length; i++) {
+        String[] parameter = parts[i].split("=", 2);
+        if (parameter.length < 2) {
+          continue;
+        }
+        String name = parameter[0].trim().toLowerCase(Locale.ROOT);
+        String value = parameter[1].trim().replace("\"", "");
+        if (name.equals("q")) {
+          try {
+            quality = Double.parseDouble(value);
+          } catch (NumberFormatException e) {
+            quality = 0;
+          }
+        } else if (name.equals("profile")) {
+          profile = value;
+        }
+      }
+
+      String candidate = toMediaType(parts[0].trim().toLowerCase(Locale.ROOT), profile);
+      if (candidate != null && quality > mediaTypeQuality) {
+        mediaType = candidate;
+        mediaTypeQuality = quality;
+      }
+    }
+    return mediaType;
+  }
+
+  private static String toMediaType(String range, String profile) {
+    switch (range) {
+      case MEDIA_TYPE_DID_LD_JSON:
+        return MEDIA_TYPE_DID_LD_JSON;
+      case MEDIA_TYPE_DID_JSON:
+        return MEDIA_TYPE_DID_JSON;
+      case "application/ld+json":
+        return profile == null || profile.contains(DID_RESOLUTION_PROFILE) ? MEDIA_TYPE_RESOLVE_RESULT : null;
+      case "application/json":
+      case "application/*":
+      case "*/*":
+        return MEDIA_TYPE_RESOLVE_RESULT;
+      default:
+        return null;
+    }
+  }
+
+  // the path info is already decoded by the container
+  private static String getIdentifier(HttpServletRequest request) {
+    String path = request.getPathInfo() == null ? "" : request.getPathInfo();
+    return path.startsWith("/") ? path.substring(1) : path;
+  }
+
+  private static String getLastModified(ResolveDataModelResult resolveResult) {
+    Map<String, Object> didDocumentMetadata = resolveResult.getDidDocumentMetadata();
+    if (didDocumentMetadata == null) {
+      return null;
+    }
+    Object updated = didDocumentMetadata.get(DID_UPDATED);
+    String lastModified = updated instanceof String ? HttpCaching.toHttpDate((String) updated) : null;
+    if (lastModified == null) {
+      Object created = didDocumentMetadata.get(DID_CREATED);
+      lastModified = created instanceof String ? HttpCaching.toHttpDate((String) created) : null;
+    }
+    return lastModified;
+  }
+}
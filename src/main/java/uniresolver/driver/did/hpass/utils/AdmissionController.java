@@ -0,0 +1,258 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admits at most {@code maxConcurrent} requests at a time, further requests wait in a queue that is managed like CoDel.
+ *
+ * <p>As long as waiting requests are admitted within {@code target}, the queue only absorbs bursts. Once the queueing
+ * delay stayed above the target for a whole {@code interval}, the controller sheds load: waiting and newly arriving
+ * requests are rejected at a rate that grows with the square root of the rejections, until a request is admitted within
+ * the target again. Rejected requests are told to come back after the time the admitted work takes to drain.
+ */
+public class AdmissionController {
+
+  // weight of a new processing time in the moving average, in 1/16
+  private static final int PROCESSING_SMOOTHING = 16;
+  private final int maxConcurrent;
+  private final int maxQueueLength;
+  private final long targetNanos;
+  private final long intervalNanos;
+  private final DriverMetrics metrics;
+  private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+  private int active;
+  private long firstAboveTime;
+  private boolean dropping;
+  private long dropNext;
+  private int dropCount;
+  private long processingNanos;
+
+  public AdmissionController(int maxConcurrent, int maxQueueLength, long targetMillis, long intervalMillis, DriverMetrics metrics) {
+    if (maxConcurrent <= 0 || maxQueueLength < 0 || targetMillis <= 0 || intervalMillis < targetMillis) {
+      throw new IllegalArgumentException(
+          "maxConcurrent and targetMillis must be positive, maxQueueLength not negative and intervalMillis not below the target");
+    }
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueueLength = maxQueueLength;
+    this.targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.metrics = metrics;
+  }
+
+  /**
+   * Admits the request right away if a slot is free and nobody waits. An admitted request has to call {@link #release}.
+   */
+  public boolean tryAcquire() {
+    synchronized (this) {
+      if (this.active >= this.maxConcurrent || !this.queue.isEmpty()) {
+        return false;
+      }
+      this.active++;
+    }
+    this.metrics.recordLatency(DriverMetrics.Stage.ADMISSION_QUEUE, System.nanoTime(), false);
+    return true;
+  }
+
+  /**
+   * Queues a request that could not be admitted right away. Returns null if it is rejected instead, because the queue is
+   * full or the controller is shedding load, the waiter is not called in that case.
+   */
+  public Ticket enqueue(Waiter waiter) {
+    long now = System.nanoTime();
+    Ticket ticket = new Ticket(waiter, now);
+    synchronized (this) {
+      // a slot may have been freed since tryAcquire
+      if (this.active < this.maxConcurrent && this.queue.isEmpty()) {
+        this.active++;
+        ticket.state.set(Ticket.State.ADMITTED);
+      } else if (this.queue.size() < this.maxQueueLength && !(this.dropping && shedNext(now))) {
+        this.queue.add(ticket);
+        return ticket;
+      } else {
+        ticket = null;
+      }
+    }
+    this.metrics.recordLatency(DriverMetrics.Stage.ADMISSION_QUEUE, now, ticket == null);
+    if (ticket != null) {
+      waiter.admit();
+    }
+    return ticket;
+  }
+
+  /**
+   * Removes a waiting request, e.g. after it timed out. Returns false if it was already admitted or rejected, the state
+   * of the ticket decides a race with {@link #release} so that exactly one of them handles the request.
+   */
+  public boolean cancel(Ticket ticket) {
+    if (!ticket.state.compareAndSet(Ticket.State.WAITING, Ticket.State.CANCELLED)) {
+      return false;
+    }
+    synchronized (this) {
+      this.queue.remove(ticket);
+    }
+    this.metrics.recordLatency(DriverMetrics.Stage.ADMISSION_QUEUE, ticket.enqueuedAt, true);
+    return true;
+  }
+
+  /**
+   * Frees the slot of a request that was processed for {@code processingNanos} and hands it to the next waiting request
+   * that is not shed.
+   */
+  public void release(long processingNanos) {
+    handOver(processingNanos);
+  }
+
+  /**
+   * Gives back a slot that was handed to a waiting request that could not use it anymore, e.g. because its request had
+   * already timed out. The processing time is not recorded.
+   */
+  public void release() {
+    handOver(-1);
+  }
+
+  private void handOver(long processingNanos) {
+    List<Ticket> rejected = new ArrayList<>();
+    Ticket admitted = null;
+    long retryAfterSeconds;
+    long now = System.nanoTime();
+    synchronized (this) {
+      if (processingNanos >= 0) {
+        this.processingNanos = this.processingNanos == 0 ? processingNanos
+            : this.processingNanos + (processingNanos - this.processingNanos) / PROCESSING_SMOOTHING;
+      }
+
+      while (admitted == null && !this.queue.isEmpty()) {
+        Ticket ticket = this.queue.poll();
+        if (ticket.state.get() != Ticket.State.WAITING) {
+          continue;
+        }
+        if (shouldDrop(ticket, now)) {
+          if (ticket.state.compareAndSet(Ticket.State.WAITING, Ticket.State.CANCELLED)) {
+            rejected.add(ticket);
+          }
+        } else if (ticket.state.compareAndSet(Ticket.State.WAITING, Ticket.State.ADMITTED)) {
+          admitted = ticket;
+        }
+      }
+      if (admitted == null) {
+        this.active--;
+      }
+      if (this.queue.isEmpty()) {
+        // an empty queue has no standing delay
+        this.firstAboveTime = 0;
+        this.dropping = false;
+      }
+      retryAfterSeconds = getRetryAfterSeconds();
+    }
+
+    for (Ticket ticket : rejected) {
+      this.metrics.recordLatency(DriverMetrics.Stage.ADMISSION_QUEUE, ticket.enqueuedAt, true);
+      ticket.waiter.reject(retryAfterSeconds);
+    }
+    if (admitted != null) {
+      this.metrics.recordLatency(DriverMetrics.Stage.ADMISSION_QUEUE, admitted.enqueuedAt, false);
+      admitted.waiter.admit();
+    }
+  }
+
+  /**
+   * Returns the seconds until the admitted and waiting requests are expected to be processed, at least one.
+   */
+  public synchronized long getRetryAfterSeconds() {
+    long drainNanos = (this.active + this.queue.size()) * this.processingNanos / this.maxConcurrent;
+    return Math.max(1, (drainNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+  }
+
+  public synchronized int getActive() {
+    return this.active;
+  }
+
+  public synchronized int getQueueLength() {
+    return this.queue.size();
+  }
+
+  private boolean shouldDrop(Ticket ticket, long now) {
+    boolean okToDrop;
+    if (now - ticket.enqueuedAt < this.targetNanos) {
+      this.firstAboveTime = 0;
+      okToDrop = false;
+    } else if (this.firstAboveTime == 0) {
+      this.firstAboveTime = now + this.intervalNanos;
+      okToDrop = false;
+    } else {
+      okToDrop = now - this.firstAboveTime >= 0;
+    }
+
+    if (this.dropping) {
+      if (!okToDrop) {
+        this.dropping = false;
+        return false;
+      }
+      return shedNext(now);
+    }
+    if (okToDrop) {
+      this.dropping = true;
+      // shedding that starts again soon after it stopped resumes close to the rate it had reached
+      this.dropCount = this.dropCount > 2 && now - this.dropNext < 16 * this.intervalNanos ? this.dropCount - 2 : 1;
+      this.dropNext = now + controlLaw();
+      return true;
+    }
+    return false;
+  }
+
+  private boolean shedNext(long now) {
+    if (now - this.dropNext < 0) {
+      return false;
+    }
+    this.dropCount++;
+    this.dropNext += controlLaw();
+    return true;
+  }
+
+  private long controlLaw() {
+    return (long) (this.intervalNanos / Math.sqrt(this.dropCount));
+  }
+
+  /**
+   * Callbacks of a waiting request, called outside of the lock of the controller.
+   */
+  public interface Waiter {
+
+    void admit();
+
+    void reject(long retryAfterSeconds);
+  }
+
+  public static final class Ticket {
+
+    private enum State {
+      WAITING, ADMITTED, CANCELLED
+    }
+
+    private final Waiter waiter;
+    private final long enqueuedAt;
+    private final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+
+    private Ticket(Waiter waiter, long enqueuedAt) {
+      this.waiter = waiter;
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Body handler that collects the response body as bytes and fails once it grows beyond {@code maxBytes}.
+ *
+ * <p>A {@code Content-Length} above the limit is rejected before any byte is read, otherwise the download is
+ * cancelled as soon as the limit is crossed.
+ */
+public class BoundedBodyHandler implements HttpResponse.BodyHandler<byte[]> {
+
+  private final long maxBytes;
+  private final MessageUtils messageUtils;
+
+  public BoundedBodyHandler(long maxBytes, MessageUtils messageUtils) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.maxBytes = maxBytes;
+    this.messageUtils = messageUtils;
+  }
+
+  @Override
+  public HttpResponse.BodySubscriber<byte[]> apply(HttpResponse.ResponseInfo responseInfo) {
+    long contentLength = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1L);
+    return new BoundedBodySubscriber(contentLength);
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  public static class BodyTooLargeException extends IOException {
+
+    public BodyTooLargeException(String message) {
+      super(message);
+    }
+  }
+
+  private final class BoundedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final long contentLength;
+    private Flow.Subscription subscription;
+    private long size;
+
+    private BoundedBodySubscriber(long contentLength) {
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (this.contentLength > BoundedBodyHandler.this.maxBytes) {
+        reject();
+        return;
+      }
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+      if (this.body.isDone()) {
+        return;
+      }
+      for (ByteBuffer item : items) {
+        this.size += item.remaining();
+        if (this.size > BoundedBodyHandler.this.maxBytes) {
+          reject();
+          return;
+        }
+        this.buffers.add(item);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.buffers.clear();
+      this.body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      if (this.body.isDone()) {
+        return;
+      }
+      byte[] bytes = new byte[(int) this.size];
+      int offset = 0;
+      for (ByteBuffer buffer : this.buffers) {
+        int length = buffer.remaining();
+        buffer.get(bytes, offset, length);
+        offset += length;
+      }
+      this.buffers.clear();
+      this.body.complete(bytes);
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+      return this.body;
+    }
+
+    private void reject() {
+      this.subscription.cancel();
+      this.buffers.clear();
+      String message = BoundedBodyHandler.this.messageUtils.formatMessage("RESPONSE_BODY_TOO_LARGE",
+          String.valueOf(BoundedBodyHandler.this.maxBytes));
+      this.body.completeExceptionally(new BodyTooLargeException(message));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker of a single server. After {@code failureThreshold} consecutive connection failures the circuit opens
+ * and the server is skipped. Once {@code openMillis} have passed a single trial request is let through (half-open): its
+ * success closes the circuit, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private volatile long openUntil;
+
+  public CircuitBreaker(int failureThreshold, long openMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * Returns whether a request may be sent to the server. In the half-open state only the first caller gets the trial.
+   */
+  public boolean tryAcquire() {
+    State current = this.state.get();
+    if (current == State.CLOSED) {
+      return true;
+    }
+    if (current == State.OPEN && System.currentTimeMillis() >= this.openUntil) {
+      return this.state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+    return false;
+  }
+
+  /**
+   * Records that the server answered. Returns true if this closed an open circuit.
+   */
+  public boolean onSuccess() {
+    this.consecutiveFailures.set(0);
+    return this.state.getAndSet(State.CLOSED) != State.CLOSED;
+  }
+
+  /**
+   * Records a connection failure. Returns true if this opened the circuit.
+   */
+  public boolean onFailure() {
+    int failures = this.consecutiveFailures.incrementAndGet();
+    State current = this.state.get();
+    if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= this.failureThreshold)) {
+      this.openUntil = System.currentTimeMillis() + this.openMillis;
+      return this.state.compareAndSet(current, State.OPEN);
+    }
+    return false;
+  }
+
+  /**
+   * Gives back a half-open trial whose request ended without an outcome, e.g. because it was cancelled.
+   */
+  public void release() {
+    this.state.compareAndSet(State.HALF_OPEN, State.OPEN);
+  }
+
+  public State getState() {
+    return this.state.get();
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit of the concurrent requests to a single server (AIMD).
+ *
+ * <p>Every answer that arrives without queueing delay raises the limit by one while the server is used to at least half
+ * of it, every failure, server error or answer that took more than {@code rttTolerance} times the baseline round trip
+ * time cuts it by ten percent. The baseline follows the fastest round trip times, it slowly moves up with sustained
+ * higher latencies, so a server that is slower for good is not throttled forever.
+ */
+public class ConcurrencyLimiter {
+
+  public static final double DEFAULT_RTT_TOLERANCE = 2;
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final int BASELINE_SMOOTHING = 64;
+  // queueing below this is noise of fast round trips, it does not show an overloaded server
+  private static final long MIN_QUEUEING_NANOS = 5_000_000;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double rttTolerance;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  // written only under the lock of onSample, read without it on the selection path
+  private volatile double limit;
+  private long baselineRttNanos = -1;
+
+  public ConcurrencyLimiter(int initialLimit, int maxLimit, double rttTolerance) {
+    if (initialLimit <= 0 || maxLimit < initialLimit || rttTolerance < 1) {
+      throw new IllegalArgumentException("initialLimit must be positive, maxLimit not below it and rttTolerance at least 1");
+    }
+    this.minLimit = 1;
+    this.maxLimit = maxLimit;
+    this.rttTolerance = rttTolerance;
+    this.limit = initialLimit;
+  }
+
+  /**
+   * Returns whether a request may be sent to the server. Each acquired request has to end with {@link #onSample} or
+   * {@link #release}.
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = this.inFlight.get();
+      if (current >= (int) this.limit) {
+        return false;
+      }
+      if (this.inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Ends a request and adapts the limit to its round trip time, {@code dropped} if the server failed or was overloaded.
+   */
+  public void onSample(long rttNanos, boolean dropped) {
+    int inFlightBefore = this.inFlight.getAndUpdate(current -> Math.max(0, current - 1));
+    synchronized (this) {
+      adapt(rttNanos, dropped, inFlightBefore);
+    }
+  }
+
+  private void adapt(long rttNanos, boolean dropped, int inFlightBefore) {
+    boolean queued = false;
+    if (!dropped) {
+      if (this.baselineRttNanos < 0 || rttNanos < this.baselineRttNanos) {
+        this.baselineRttNanos = rttNanos;
+      } else {
+        queued = rttNanos - this.baselineRttNanos > MIN_QUEUEING_NANOS && rttNanos > this.baselineRttNanos * this.rttTolerance;
+        this.baselineRttNanos += (rttNanos - this.baselineRttNanos) / BASELINE_SMOOTHING;
+      }
+    }
+
+    if (dropped || queued) {
+      this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+    } else if (inFlightBefore * 2 >= this.limit) {
+      // only a limit that was actually used up to half is raised, an idle server gives no evidence for more
+      this.limit = Math.min(this.maxLimit, this.limit + 1);
+    }
+  }
+
+  /**
+   * Ends a request without an outcome, e.g. because it was cancelled or never sent, the limit is kept.
+   */
+  public void release() {
+    this.inFlight.updateAndGet(current -> Math.max(0, current - 1));
+  }
+
+  public int getLimit() {
+    return (int) this.limit;
+  }
+
+  public int getInFlight() {
+    return this.inFlight.get();
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import uniresolver.ResolutionException;
+
+/**
+ * Point in time by which a resolution has to be answered. Every request sent on behalf of the resolution only gets the
+ * time that is left, so retries and slow backends cannot make a resolution take longer than its budget.
+ */
+public final class Deadline {
+
+  private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+  private static volatile ScheduledThreadPoolExecutor expiryScheduler;
+  private final long timeoutMillis;
+  private final long expiresAtNanos;
+
+  private Deadline(long timeoutMillis) {
+    this.timeoutMillis = timeoutMillis;
+    this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+  }
+
+  public static Deadline after(long timeoutMillis) {
+    if (timeoutMillis <= 0) {
+      throw new IllegalArgumentException("timeoutMillis must be positive");
+    }
+    return new Deadline(timeoutMillis);
+  }
+
+  /**
+   * Returns a deadline that never expires, e.g. for background work no caller waits for.
+   */
+  public static Deadline none() {
+    return NONE;
+  }
+
+  public boolean isBounded() {
+    return this != NONE;
+  }
+
+  public long getTimeoutMillis() {
+    return this.timeoutMillis;
+  }
+
+  public long remainingMillis() {
+    if (!isBounded()) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.expiresAtNanos - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return isBounded() && this.expiresAtNanos - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Limits the request to the time that is left, the request fails with an {@link java.net.http.HttpTimeoutException}
+   * if no response arrived by then.
+   */
+  public HttpRequest.Builder applyTo(HttpRequest.Builder builder) {
+    if (isBounded()) {
+      builder.timeout(Duration.ofMillis(Math.max(1, remainingMillis())));
+    }
+    return builder;
+  }
+
+  /**
+   * Returns a future that completes like {@code future}, or fails with a {@link DeadlineExceededException} once the
+   * deadline has passed. {@code future} itself is left running, other callers may still wait for it.
+   */
+  public <T> CompletableFuture<T> bound(CompletableFuture<T> future, Supplier<String> message) {
+    if (!isBounded() || future.isDone()) {
+      return future;
+    }
+
+    CompletableFuture<T> bounded = new CompletableFuture<>();
+    ScheduledFuture<?> expiry = scheduleExpiry(() -> bounded.completeExceptionally(new DeadlineExceededException(message.get())),
+        this.expiresAtNanos - System.nanoTime());
+    future.whenComplete((value, error) -> {
+      expiry.cancel(false);
+      if (error == null) {
+        bounded.complete(value);
+      } else {
+        bounded.completeExceptionally(error);
+      }
+    });
+    return bounded;
+  }
+
+  /**
+   * Stops the thread that fails bounded futures once they are due. Expiries that are already scheduled still fire, a
+   * later {@link #bound} starts a new thread.
+   */
+  public static synchronized void shutdown() {
+    if (expiryScheduler != null) {
+      expiryScheduler.shutdown();
+      expiryScheduler = null;
+    }
+  }
+
+  private static ScheduledFuture<?> scheduleExpiry(Runnable expiry, long delayNanos) {
+    while (true) {
+      try {
+        return getExpiryScheduler().schedule(expiry, delayNanos, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException e) {
+        // shut down in between, the next attempt starts a new scheduler once shutdown() has cleared the old one
+      }
+    }
+  }
+
+  private static ScheduledThreadPoolExecutor getExpiryScheduler() {
+    ScheduledThreadPoolExecutor scheduler = expiryScheduler;
+    if (scheduler != null) {
+      return scheduler;
+    }
+    synchronized (Deadline.class) {
+      if (expiryScheduler == null) {
+        expiryScheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("hpass-deadline"));
+        // most resolutions complete in time, their expiry tasks are removed instead of piling up until they are due
+        expiryScheduler.setRemoveOnCancelPolicy(true);
+      }
+      return expiryScheduler;
+    }
+  }
+
+  /**
+   * Thrown when a resolution ran out of time, it says nothing about the DID and is not cached.
+   */
+  public static class DeadlineExceededException extends ResolutionException {
+
+    public DeadlineExceededException(String message) {
+      super(message);
+    }
+
+    // raised for every timed out resolution, the stack trace of the timer thread carries no information
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import uniresolver.ResolutionException;
+
+/**
+ * Failure that another attempt would not change for a while, like a DID that the DID network does not know or a
+ * network without REST environment in the registry. It is neither retried nor sent to the backends again while it is
+ * in the negative cache.
+ */
+public class DefinitiveResolutionException extends ResolutionException {
+
+  public DefinitiveResolutionException(String message) {
+    super(message);
+  }
+
+  public DefinitiveResolutionException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters of a driver, written out in the Prometheus text format.
+ */
+public class DriverMetrics {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String PREFIX = "hpass_driver_";
+  private final Map<Stage, LatencyHistogram> latencies = new EnumMap<>(Stage.class);
+  private final Map<Stage, LongAdder> failures = new EnumMap<>(Stage.class);
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder retryBudgetExhausted = new LongAdder();
+  private final LongAdder hedgedRequests = new LongAdder();
+  private final LongAdder concurrencyLimited = new LongAdder();
+  private final LongAdder cacheHits = new LongAdder();
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder negativeCacheHits = new LongAdder();
+  private final LongAdder notModified = new LongAdder();
+
+  public enum Stage {
+    RESOLVE("resolve"),
+    REGISTRY("registry"),
+    DID_NETWORK("did_network"),
+    AUTHENTICATION("authentication"),
+    HTTP_REQUEST("http_request"),
+    PARSE("parse"),
+    ADMISSION_QUEUE("admission_queue");
+
+    private final String name;
+
+    Stage(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+  }
+
+  public DriverMetrics() {
+    for (Stage stage : Stage.values()) {
+      this.latencies.put(stage, new LatencyHistogram());
+      this.failures.put(stage, new LongAdder());
+    }
+  }
+
+  public void recordLatency(Stage stage, long startNanos, boolean failed) {
+    this.latencies.get(stage).record(System.nanoTime() - startNanos);
+    if (failed) {
+      this.failures.get(stage).increment();
+    }
+  }
+
+  /**
+   * Records the latency of {@code future} once it completes and returns the same future.
+   */
+  public <T> CompletableFuture<T> time(Stage stage, CompletableFuture<T> future) {
+    long startNanos = System.nanoTime();
+    future.whenComplete((result, error) -> recordLatency(stage, startNanos, error != null));
+    return future;
+  }
+
+  public void recordRetry() {
+    this.retries.increment();
+  }
+
+  public void recordRetryBudgetExhausted() {
+    this.retryBudgetExhausted.increment();
+  }
+
+  public void recordHedgedRequest() {
+    this.hedgedRequests.increment();
+  }
+
+  public void recordConcurrencyLimited() {
+    this.concurrencyLimited.increment();
+  }
+
+  public void recordCacheHit() {
+    this.cacheHits.increment();
+  }
+
+  public void recordCacheMiss() {
+    this.cacheMisses.increment();
+  }
+
+  public void recordNegativeCacheHit() {
+    this.negativeCacheHits.increment();
+  }
+
+  public void recordNotModified() {
+    this.notModified.increment();
+  }
+
+  public LatencyHistogram getLatency(Stage stage) {
+    return this.latencies.get(stage);
+  }
+
+  public long getFailures(Stage stage) {
+    return this.failures.get(stage).sum();
+  }
+
+  public long getRetryBudgetExhausted() {
+    return this.retryBudgetExhausted.sum();
+  }
+
+  public long getRetries() {
+    return this.retries.sum();
+  }
+
+  public long getHedgedRequests() {
+    return this.hedgedRequests.sum();
+  }
+
+  public long getConcurrencyLimited() {
+    return this.concurrencyLimited.sum();
+  }
+
+  public long getCacheHits() {
+    return this.cacheHits.sum();
+  }
+
+  public long getCacheMisses() {
+    return this.cacheMisses.sum();
+  }
+
+  public long getNegativeCacheHits() {
+    return this.negativeCacheHits.sum();
+  }
+
+  public long getNotModified() {
+    return this.notModified.sum();
+  }
+
+  /**
+   * Writes all metrics plus the per-server statistics of {@code loadBalancers}, keyed by the name used as
+   * {@code load_balancer} label.
+   */
+  public void writeTo(StringBuilder out, Map<String, RestClientLoadBalancer> loadBalancers) {
+    writeHeader(out, "stage_duration_seconds", "histogram", "Duration of the resolution stages");
+    for (Stage stage : Stage.values()) {
+      this.latencies.get(stage).writeTo(out, PREFIX + "stage_duration_seconds", label("stage", stage.getName()));
+    }
+
+    writeHeader(out, "stage_failures_total", "counter", "Failed executions of the resolution stages");
+    for (Stage stage : Stage.values()) {
+      writeSample(out, "stage_failures_total", label("stage", stage.getName()), this.failures.get(stage).sum());
+    }
+
+    writeHeader(out, "retries_total", "counter", "Requests retried on another server");
+    writeSample(out, "retries_total", "", this.retries.sum());
+    writeHeader(out, "retry_budget_exhausted_total", "counter", "Retries refused because the retry budget was used up");
+    writeSample(out, "retry_budget_exhausted_total", "", this.retryBudgetExhausted.sum());
+    writeHeader(out, "hedged_requests_total", "counter", "Hedged requests sent to a second server");
+    writeSample(out, "hedged_requests_total", "", this.hedgedRequests.sum());
+    writeHeader(out, "concurrency_limited_total", "counter", "Requests failed because all servers were at their concurrency limit");
+    writeSample(out, "concurrency_limited_total", "", this.concurrencyLimited.sum());
+    writeHeader(out, "cache_hits_total", "counter", "Resolutions answered from the resolution cache");
+    writeSample(out, "cache_hits_total", "", this.cacheHits.sum());
+    writeHeader(out, "cache_misses_total", "counter", "Resolutions not found in the resolution cache");
+    writeSample(out, "cache_misses_total", "", this.cacheMisses.sum());
+    writeHeader(out, "negative_cache_hits_total", "counter", "Lookups answered with a cached definitive failure");
+    writeSample(out, "negative_cache_hits_total", "", this.negativeCacheHits.sum());
+    writeHeader(out, "cache_revalidations_not_modified_total", "counter", "Expired cache entries renewed by a 304 response");
+    writeSample(out, "cache_revalidations_not_modified_total", "", this.notModified.sum());
+
+    writeServerStats(out, loadBalancers);
+  }
+
+  private void writeServerStats(StringBuilder out, Map<String, RestClientLoadBalancer> loadBalancers) {
+    writeHeader(out, "server_active_requests", "gauge", "Requests currently sent to a server");
+    forEachServer(loadBalancers, (labels, loadBalancer, server, stats) ->
+        writeSample(out, "server_active_requests", labels, stats.getActiveRequestsCount()));
+
+    writeHeader(out, "server_requests_total", "counter", "Requests sent to a server");
+    forEachServer(loadBalancers, (labels, loadBalancer, server, stats) ->
+        writeSample(out, "server_requests_total", labels, stats.getTotalRequestsCount()));
+
+    writeHeader(out, "server_successive_connection_failures", "gauge", "Connection failures of a server since its last success");
+    forEachServer(loadBalancers, (labels, loadBalancer, server, stats) ->
+        writeSample(out, "server_successive_connection_failures", labels, stats.getSuccessiveConnectionFailureCount()));
+
+    writeHeader(out, "server_response_time_avg_seconds", "gauge", "Average response time of a server");
+    forEachServer(loadBalancers, (labels, loadBalancer, server, stats) ->
+        writeSample(out, "server_response_time_avg_seconds", labels, stats.getResponseTimeAvg() / 1000));
+
+    writeHeader(out, "server_circuit_open", "gauge", "1 if the circuit breaker of a server is open");
+    forEachServer(loadBalancers, (labels, loadBalancer, server, stats) -> writeSample(out, "server_circuit_open", labels,
+        loadBalancer.getCircuitBreakerState(server) == CircuitBreaker.State.OPEN ? 1 : 0));
+
+    writeHeader(out, "server_concurrency_limit", "gauge", "Adaptive limit of concurrent requests to a server, 0 if unlimited");
+    forEachServer(loadBalancers, (labels, loadBalancer, server, stats) ->
+        writeSample(out, "server_concurrency_limit", labels, loadBalancer.getConcurrencyLimit(server)));
+  }
+
+  private static void forEachServer(Map<String, RestClientLoadBalancer> loadBalancers, ServerSampleWriter writer) {
+    for (Map.Entry<String, RestClientLoadBalancer> entry : loadBalancers.entrySet()) {
+      RestClientLoadBalancer loadBalancer = entry.getValue();
+      LoadBalancerStats loadBalancerStats = loadBalancer.getLoadBalancerStats();
+      for (Server server : loadBalancer.getAllServers()) {
+        String labels = label("load_balancer", entry.getKey()) + "," + label("server", server.getHost());
+        writer.write(labels, loadBalancer, server, loadBalancerStats.getSingleServerStat(server));
+      }
+    }
+  }
+
+  private static void writeHeader(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void writeSample(StringBuilder out, String name, String labels, double value) {
+    out.append(PREFIX).append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ').append(value).append('\n');
+  }
+
+  private static String label(String name, String value) {
+    String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    return name + "=\"" + escaped + "\"";
+  }
+
+  private interface ServerSampleWriter {
+
+    void write(String labels, RestClientLoadBalancer loadBalancer, Server server, ServerStats stats);
+  }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Size-bounded in-memory cache with a fixed time-to-live per entry.
+ *
+ * <p>Lookups do not lock, every entry remembers when it was last used. Once more than {@code maxSize} entries are
+ * stored, one thread evicts the expired and least recently used entries down to 95% of {@code maxSize}, so the sort
+ * this takes is paid once per many inserts. Concurrent inserts may exceed {@code maxSize} briefly while it runs.
+ * Expired entries are dropped lazily on access.
+ */
+public class ExpiringCache<K, V> {
+
+  private final int maxSize;
+  private final int evictionTarget;
+  private final long ttlMillis;
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  public ExpiringCache(int maxSize, long ttlMillis) {
+    if (maxSize <= 0 || ttlMillis <= 0) {
+      throw new IllegalArgumentException("maxSize and ttlMillis must be positive");
+    }
+    this.maxSize = maxSize;
+    this.evictionTarget = maxSize - maxSize / 20;
+    this.ttlMillis = ttlMillis;
+  }
+
+  public V get(K key) {
+    Entry<V> entry = this.entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt <= System.currentTimeMillis()) {
+      this.entries.remove(key, entry);
+      return null;
+    }
+    entry.touch();
+    return entry.value;
+  }
+
+  /**
+   * Returns the entry also after it has expired, without removing it, so that an expired value can be revalidated and
+   * renewed instead of being fetched again. Expired entries still count towards {@code maxSize} until evicted.
+   */
+  public Entry<V> getEntry(K key) {
+    Entry<V> entry = this.entries.get(key);
+    if (entry != null) {
+      entry.touch();
+    }
+    return entry;
+  }
+
+  /**
+   * Restarts the ttl of an entry, e.g. after it was revalidated.
+   */
+  public void renew(K key) {
+    this.entries.computeIfPresent(key, (k, entry) -> new Entry<>(entry.value, System.currentTimeMillis() + this.ttlMillis));
+  }
+
+  public void put(K key, V value) {
+    this.entries.put(key, new Entry<>(value, System.currentTimeMillis() + this.ttlMillis));
+    evictIfFull();
+  }
+
+  /**
+   * Adds an entry that was stored at {@code storedAt}, e.g. read back from a {@link PersistentCache}, it expires one
+   * ttl after that. An already expired entry is ignored.
+   */
+  public void restore(K key, V value, long storedAt) {
+    long expiresAt = storedAt + this.ttlMillis;
+    if (expiresAt > System.currentTimeMillis()) {
+      this.entries.put(key, new Entry<>(value, expiresAt));
+      evictIfFull();
+    }
+  }
+
+  public void invalidate(K key) {
+    this.entries.remove(key);
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  public long getTtlMillis() {
+    return this.ttlMillis;
+  }
+
+  private void evictIfFull() {
+    // inserts that arrive while another thread evicts are checked again by that thread once it is done
+    while (this.entries.size() > this.maxSize && this.evicting.compareAndSet(false, true)) {
+      try {
+        evict();
+      } finally {
+        this.evicting.set(false);
+      }
+    }
+  }
+
+  private void evict() {
+    int excess = this.entries.size() - this.evictionTarget;
+    if (excess <= 0) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<>(this.entries.entrySet());
+    // expired entries go first, then the least recently used ones
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().expiresAt <= now
+        ? Long.MIN_VALUE : candidate.getValue().lastUsedNanos));
+    for (int i = 0; i < excess && i < candidates.size(); i++) {
+      this.entries.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+    }
+  }
+
+  public static final class Entry<V> {
+
+    private final V value;
+    private final long expiresAt;
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    private Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    public V getValue() {
+      return this.value;
+    }
+
+    public boolean isExpired() {
+      return this.expiresAt <= System.currentTimeMillis();
+    }
+
+    private void touch() {
+      this.lastUsedNanos = System.nanoTime();
+    }
+  }
+}
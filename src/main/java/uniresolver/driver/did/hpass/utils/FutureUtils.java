@@ -0,0 +1,102 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import uniresolver.ResolutionException;
+
+public final class FutureUtils {
+
+  private FutureUtils() {
+  }
+
+  /**
+   * Blocks until the future completes and rethrows its failure as the original {@link ResolutionException} or
+   * {@link RuntimeException}, any other cause is wrapped into a {@link ResolutionException}.
+   */
+  public static <T> T await(CompletableFuture<T> future) throws ResolutionException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResolutionException(e.getMessage(), e);
+    } catch (ExecutionException e) {
+      Throwable cause = unwrap(e);
+      if (cause instanceof ResolutionException) {
+        throw (ResolutionException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ResolutionException(cause.getMessage(), cause);
+    }
+  }
+
+  public static Throwable unwrap(Throwable throwable) {
+    Throwable cause = throwable;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  /**
+   * Wraps a checked exception so that it can leave a {@link CompletableFuture} stage, {@link #await} unwraps it again.
+   */
+  public static CompletionException wrap(Throwable throwable) {
+    if (throwable instanceof CompletionException) {
+      return (CompletionException) throwable;
+    }
+    return new CompletionException(throwable);
+  }
+
+  /**
+   * Runs the task for every item with at most {@code concurrency} tasks in flight. The returned future completes once
+   * all tasks have completed, failures of single tasks are left to the task futures.
+   */
+  public static <T> CompletableFuture<Void> forEachBounded(List<T> items, int concurrency, Function<T, CompletableFuture<?>> task) {
+    AtomicInteger next = new AtomicInteger();
+    CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(concurrency, items.size())];
+    for (int i = 0; i < lanes.length; i++) {
+      lanes[i] = runLane(items, next, task);
+    }
+    return CompletableFuture.allOf(lanes);
+  }
+
+  private static <T> CompletableFuture<Void> runLane(List<T> items, AtomicInteger next, Function<T, CompletableFuture<?>> task) {
+    while (true) {
+      int index = next.getAndIncrement();
+      if (index >= items.size()) {
+        return CompletableFuture.completedFuture(null);
+      }
+
+      CompletableFuture<?> current;
+      try {
+        current = task.apply(items.get(index));
+      } catch (RuntimeException e) {
+        current = CompletableFuture.failedFuture(e);
+      }
+
+      // tasks completing synchronously, e.g. cache hits, are handled in the loop instead of growing the stack
+      if (!current.isDone()) {
+        return current.handle((value, error) -> null).thenCompose(ignored -> runLane(items, next, task));
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Validators and conditional request evaluation for HTTP caching, see RFC 7232.
+ */
+public final class HttpCaching {
+
+  private static final int ENTITY_TAG_BYTES = 16;
+
+  private HttpCaching() {
+  }
+
+  /**
+   * Returns a strong entity tag derived from the representation, equal representations get equal tags.
+   */
+  public static String entityTag(byte[] representation) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(representation);
+      return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, ENTITY_TAG_BYTES)) + '"';
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform has to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Formats a DID date time, e.g. {@code 2021-02-13T16:06:55Z}, as HTTP date, null if it is not a valid date time.
+   */
+  public static String toHttpDate(String dateTime) {
+    if (!IdentifierValidator.isValidDateTime(dateTime)) {
+      return null;
+    }
+    try {
+      return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.parse(dateTime).atOffset(ZoneOffset.UTC));
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses an HTTP date to epoch seconds, -1 if it is none.
+   */
+  public static long parseHttpDate(String httpDate) {
+    if (httpDate == null) {
+      return -1;
+    }
+    try {
+      return ZonedDateTime.parse(httpDate.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+    } catch (DateTimeException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Evaluates {@code If-None-Match} and {@code If-Modified-Since} of a GET or HEAD request against the current
+   * validators of the representation. {@code If-None-Match} takes precedence, {@code If-Modified-Since} is only
+   * evaluated without it.
+   */
+  public static boolean isNotModified(String ifNoneMatch, String ifModifiedSince, String entityTag, String lastModified) {
+    if (ifNoneMatch != null) {
+      for (String candidate : ifNoneMatch.split(",")) {
+        String tag = candidate.trim();
+        if (tag.equals("*") || weakTag(tag).equals(weakTag(entityTag))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    long since = parseHttpDate(ifModifiedSince);
+    long modified = parseHttpDate(lastModified);
+    return since >= 0 && modified >= 0 && modified <= since;
+  }
+
+  // If-None-Match uses the weak comparison, W/"x" matches "x"
+  private static String weakTag(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
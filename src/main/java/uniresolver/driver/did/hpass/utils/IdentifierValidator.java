@@ -0,0 +1,117 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import uniresolver.ResolutionException;
+
+/**
+ * Hand-written scanners for the {@code did:hpass} identifier grammar and the metadata timestamp format.
+ *
+ * <p>They accept exactly what {@code ^did:hpass:([0-9A-Fa-f]{60,65}):([0-9A-Fa-fts]{60,65})$} and
+ * {@code ^\d{4}-(0[1-9]|1[012])-(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3]):[0-5][0-9]:[0-5][0-9]Z$} accept, without
+ * allocating, and reject on the first character that cannot match.
+ */
+public final class IdentifierValidator {
+
+  private static final String PREFIX = "did:hpass:";
+  private static final int MIN_ID_LENGTH = 60;
+  private static final int MAX_ID_LENGTH = 65;
+  private static final int DATE_TIME_LENGTH = "2020-12-20T19:17:47Z".length();
+
+  private IdentifierValidator() {
+  }
+
+  public static boolean isWellFormedIdentifier(CharSequence identifier) {
+    if (identifier == null) {
+      return false;
+    }
+    int length = identifier.length();
+    if (length < PREFIX.length() + 2 * MIN_ID_LENGTH + 1 || length > PREFIX.length() + 2 * MAX_ID_LENGTH + 1) {
+      return false;
+    }
+    for (int i = 0; i < PREFIX.length(); i++) {
+      if (identifier.charAt(i) != PREFIX.charAt(i)) {
+        return false;
+      }
+    }
+
+    int i = PREFIX.length();
+    int start = i;
+    while (i < length && isHex(identifier.charAt(i))) {
+      i++;
+    }
+    if (!isIdLength(i - start) || i == length || identifier.charAt(i) != ':') {
+      return false;
+    }
+
+    i++;
+    start = i;
+    while (i < length && (isHex(identifier.charAt(i)) || identifier.charAt(i) == 't' || identifier.charAt(i) == 's')) {
+      i++;
+    }
+    return i == length && isIdLength(i - start);
+  }
+
+  public static boolean isValidDateTime(CharSequence value) {
+    if (value == null || value.length() != DATE_TIME_LENGTH) {
+      return false;
+    }
+    return isDigit(value.charAt(0)) && isDigit(value.charAt(1)) && isDigit(value.charAt(2)) && isDigit(value.charAt(3))
+        && value.charAt(4) == '-' && isInRange(value, 5, 1, 12)
+        && value.charAt(7) == '-' && isInRange(value, 8, 1, 31)
+        && value.charAt(10) == 'T' && isInRange(value, 11, 0, 23)
+        && value.charAt(13) == ':' && isInRange(value, 14, 0, 59)
+        && value.charAt(16) == ':' && isInRange(value, 17, 0, 59)
+        && value.charAt(19) == 'Z';
+  }
+
+  private static boolean isIdLength(int length) {
+    return length >= MIN_ID_LENGTH && length <= MAX_ID_LENGTH;
+  }
+
+  // two digit field at offset, both digits required
+  private static boolean isInRange(CharSequence value, int offset, int min, int max) {
+    char tens = value.charAt(offset);
+    char units = value.charAt(offset + 1);
+    if (!isDigit(tens) || !isDigit(units)) {
+      return false;
+    }
+    int number = (tens - '0') * 10 + (units - '0');
+    return number >= min && number <= max;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHex(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  /**
+   * Rejection of a malformed identifier. It is thrown for every garbage DID, so it skips capturing the stack trace,
+   * which would only point into the validation anyway.
+   */
+  public static class InvalidIdentifierException extends ResolutionException {
+
+    public InvalidIdentifierException(String message) {
+      super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+}
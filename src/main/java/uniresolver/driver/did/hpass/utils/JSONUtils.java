@@ -13,9 +13,13 @@
 
 package uniresolver.driver.did.hpass.utils;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
 import java.net.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,4 +51,54 @@ public class JSONUtils {
     }
     return responseJson;
   }
+
+  /**
+   * Streams over the response body and binds only the value at {@code path}, e.g. {@code payload, environments}, with
+   * {@code reader}.
+   *
+   * <p>All other fields are skipped without binding them, but they are still tokenized, so malformed JSON is rejected.
+   * Returns {@code null} if the body is empty, is not a JSON object or has no non-null value at {@code path}.
+   */
+  public <T> T retrieveBodyPath(HttpResponse<byte[]> response, ObjectReader reader, String... path) throws ResolutionException {
+    byte[] body = response.body();
+    if (log.isDebugEnabled()) {
+      log.debug("HTTP request result: {} bytes", body.length);
+    }
+    return readBodyPath(body, reader, path);
+  }
+
+  public <T> T readBodyPath(byte[] body, ObjectReader reader, String... path) throws ResolutionException {
+    try (JsonParser parser = this.objectMapper.getFactory().createParser(body)) {
+      JsonToken token = parser.nextToken();
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        return null;
+      }
+      return readPath(parser, reader, path, 0);
+    } catch (IOException e) {
+      String message = this.messageUtils.formatMessage("COULD_NOT_EXTRACT_JSON_OBJECT_FROM_HTTP_RESPONSE", e.getMessage());
+      log.error(message);
+      throw new ResolutionException(message, e);
+    }
+  }
+
+  // expects the parser on START_OBJECT and leaves it on the matching END_OBJECT
+  private <T> T readPath(JsonParser parser, ObjectReader reader, String[] path, int depth) throws IOException {
+    T result = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (!path[depth].equals(fieldName)) {
+        parser.skipChildren();
+      } else if (depth == path.length - 1) {
+        result = reader.readValue(parser);
+      } else if (token == JsonToken.START_OBJECT) {
+        result = readPath(parser, reader, path, depth + 1);
+      } else {
+        parser.skipChildren();
+        result = null;
+      }
+    }
+    return result;
+  }
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed bucket bounds, written out as a Prometheus histogram.
+ */
+public class LatencyHistogram {
+
+  // upper bounds in seconds, the Prometheus client defaults plus finer buckets for the in-process stages
+  private static final double[] BUCKET_BOUNDS_SECONDS = {0.0001, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1,
+      2.5, 5, 10};
+  private final long[] bucketBoundsNanos;
+  private final LongAdder[] bucketCounts;
+  private final LongAdder sumNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    this.bucketBoundsNanos = new long[BUCKET_BOUNDS_SECONDS.length];
+    for (int i = 0; i < BUCKET_BOUNDS_SECONDS.length; i++) {
+      this.bucketBoundsNanos[i] = (long) (BUCKET_BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+    }
+    // last bucket is +Inf
+    this.bucketCounts = new LongAdder[BUCKET_BOUNDS_SECONDS.length + 1];
+    for (int i = 0; i < this.bucketCounts.length; i++) {
+      this.bucketCounts[i] = new LongAdder();
+    }
+  }
+
+  public void record(long latencyNanos) {
+    int bucket = 0;
+    while (bucket < this.bucketBoundsNanos.length && latencyNanos > this.bucketBoundsNanos[bucket]) {
+      bucket++;
+    }
+    this.bucketCounts[bucket].increment();
+    this.sumNanos.add(Math.max(0, latencyNanos));
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucketCount : this.bucketCounts) {
+      count += bucketCount.sum();
+    }
+    return count;
+  }
+
+  public double getSumSeconds() {
+    return this.sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+
+  public void writeTo(StringBuilder out, String name, String labels) {
+    long cumulativeCount = 0;
+    for (int i = 0; i < this.bucketCounts.length; i++) {
+      cumulativeCount += this.bucketCounts[i].sum();
+      String bound = "+Inf";
+      if (i < BUCKET_BOUNDS_SECONDS.length) {
+        bound = BigDecimal.valueOf(BUCKET_BOUNDS_SECONDS[i]).stripTrailingZeros().toPlainString();
+      }
+      out.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ").append(cumulativeCount)
+          .append('\n');
+    }
+    out.append(name).append("_sum{").append(labels).append("} ").append(getSumSeconds()).append('\n');
+    // the count is the +Inf bucket, so it matches the buckets written above
+    out.append(name).append("_count{").append(labels).append("} ").append(cumulativeCount).append('\n');
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent latencies in a ring buffer and reports a percentile over them. The percentile is recomputed at
+ * most once per second, recording is a single array write.
+ */
+public class LatencyTracker {
+
+  static final int MIN_SAMPLES = 20;
+  private static final long RECOMPUTE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private final AtomicLongArray samples;
+  private final AtomicLong count = new AtomicLong();
+  private final int percentile;
+  private volatile long cachedPercentileNanos = -1;
+  private volatile long cachedAt;
+
+  public LatencyTracker(int capacity, int percentile) {
+    this.samples = new AtomicLongArray(capacity);
+    this.percentile = percentile;
+  }
+
+  public void record(long latencyNanos) {
+    long index = this.count.getAndIncrement();
+    this.samples.set((int) (index % this.samples.length()), latencyNanos);
+  }
+
+  /**
+   * Returns the configured percentile of the recent latencies in nanoseconds, or -1 while there are not enough samples.
+   */
+  public long getPercentileNanos() {
+    long now = System.nanoTime();
+    if (this.cachedPercentileNanos >= 0 && now - this.cachedAt < RECOMPUTE_INTERVAL_NANOS) {
+      return this.cachedPercentileNanos;
+    }
+
+    int size = (int) Math.min(this.count.get(), this.samples.length());
+    if (size < MIN_SAMPLES) {
+      return -1;
+    }
+
+    long[] sorted = new long[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = this.samples.get(i);
+    }
+    Arrays.sort(sorted);
+    long value = sorted[Math.min(size - 1, (int) Math.ceil(size * this.percentile / 100.0) - 1)];
+
+    this.cachedPercentileNanos = value;
+    this.cachedAt = now;
+    return value;
+  }
+}
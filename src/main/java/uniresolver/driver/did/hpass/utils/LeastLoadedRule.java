@@ -0,0 +1,147 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Power-of-two-choices selection: two random reachable servers are compared and the one with the lower
+ * {@code latency * (outstanding requests + 1)} wins.
+ *
+ * <p>Latency is a peak-sensitive EWMA per server: a slower response is taken over immediately, faster responses pull it
+ * down gradually and idle time lets it decay, so a server that was slow is probed again once it has been left alone for
+ * a while. Failed requests count with at least {@link #FAILURE_PENALTY_NANOS}. Selection only reads atomics and never
+ * locks.
+ */
+public class LeastLoadedRule extends AbstractLoadBalancerRule implements ServerLoadListener {
+
+  static final double SMOOTHING = 0.3;
+  static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+  static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private final Map<Server, ServerLoad> serverLoads = new ConcurrentHashMap<>();
+
+  @Override
+  public void initWithNiwsConfig(IClientConfig clientConfig) {
+  }
+
+  @Override
+  public Server choose(Object key) {
+    ILoadBalancer loadBalancer = getLoadBalancer();
+    if (loadBalancer == null) {
+      return null;
+    }
+
+    List<Server> servers = loadBalancer.getReachableServers();
+    int size = servers.size();
+    if (size == 0) {
+      return null;
+    }
+    if (size == 1) {
+      return servers.get(0);
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+    Server firstServer = servers.get(first);
+    Server secondServer = servers.get(second);
+
+    // the key is the server that failed last, a retry should go to another server
+    if (firstServer.equals(key)) {
+      return secondServer;
+    }
+    if (secondServer.equals(key)) {
+      return firstServer;
+    }
+
+    long now = System.nanoTime();
+    return getServerLoad(firstServer).score(now) <= getServerLoad(secondServer).score(now) ? firstServer : secondServer;
+  }
+
+  @Override
+  public void onRequestStart(Server server) {
+    getServerLoad(server).outstanding.incrementAndGet();
+  }
+
+  @Override
+  public void onRequestEnd(Server server, long latencyNanos, boolean failed) {
+    ServerLoad serverLoad = getServerLoad(server);
+    serverLoad.outstanding.decrementAndGet();
+    serverLoad.observe(failed ? Math.max(latencyNanos, FAILURE_PENALTY_NANOS) : latencyNanos, System.nanoTime());
+  }
+
+  double getScore(Server server) {
+    return getServerLoad(server).score(System.nanoTime());
+  }
+
+  private ServerLoad getServerLoad(Server server) {
+    ServerLoad serverLoad = this.serverLoads.get(server);
+    if (serverLoad == null) {
+      serverLoad = this.serverLoads.computeIfAbsent(server, key -> new ServerLoad());
+    }
+    return serverLoad;
+  }
+
+  private static final class ServerLoad {
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicReference<Latency> latency = new AtomicReference<>(new Latency(0, System.nanoTime()));
+
+    private double score(long now) {
+      return this.latency.get().decayedNanos(now) * (this.outstanding.get() + 1);
+    }
+
+    private void observe(long latencyNanos, long now) {
+      Latency current;
+      Latency next;
+      do {
+        current = this.latency.get();
+        double decayed = current.decayedNanos(now);
+        double value = latencyNanos > decayed
+            ? latencyNanos
+            : decayed + (latencyNanos - decayed) * SMOOTHING;
+        next = new Latency(value, now);
+      } while (!this.latency.compareAndSet(current, next));
+    }
+  }
+
+  private static final class Latency {
+
+    private final double nanos;
+    private final long timestamp;
+
+    private Latency(double nanos, long timestamp) {
+      this.nanos = nanos;
+      this.timestamp = timestamp;
+    }
+
+    private double decayedNanos(long now) {
+      long elapsed = Math.max(0, now - this.timestamp);
+      return this.nanos * Math.exp(-(double) elapsed / DECAY_NANOS);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Settings shared by all {@link RestClientLoadBalancer} instances of a driver.
+ */
+public class LoadBalancerConfig {
+
+  private ServerSelectionPolicy serverSelectionPolicy = ServerSelectionPolicy.ROUND_ROBIN;
+  private long hedgeDelayMillis;
+  private int hedgePercentile;
+  private int circuitBreakerFailureThreshold;
+  private long circuitBreakerOpenMillis;
+  private long probeIntervalMillis;
+  private int initialConcurrencyLimit;
+  private int maxConcurrencyLimit;
+  private ScheduledExecutorService probeScheduler;
+  private DriverMetrics metrics = new DriverMetrics();
+  private RetryPolicy retryPolicy = new RetryPolicy();
+
+  public ServerSelectionPolicy getServerSelectionPolicy() {
+    return this.serverSelectionPolicy;
+  }
+
+  public LoadBalancerConfig withServerSelectionPolicy(ServerSelectionPolicy serverSelectionPolicy) {
+    this.serverSelectionPolicy = serverSelectionPolicy;
+    return this;
+  }
+
+  public long getHedgeDelayMillis() {
+    return this.hedgeDelayMillis;
+  }
+
+  public LoadBalancerConfig withHedgeDelayMillis(long hedgeDelayMillis) {
+    if (hedgeDelayMillis < 0) {
+      throw new IllegalArgumentException("hedgeDelayMillis must not be negative");
+    }
+    this.hedgeDelayMillis = hedgeDelayMillis;
+    return this;
+  }
+
+  public int getHedgePercentile() {
+    return this.hedgePercentile;
+  }
+
+  public LoadBalancerConfig withHedgePercentile(int hedgePercentile) {
+    if (hedgePercentile < 0 || hedgePercentile >= 100) {
+      throw new IllegalArgumentException("hedgePercentile must be between 0 and 99");
+    }
+    this.hedgePercentile = hedgePercentile;
+    return this;
+  }
+
+  public boolean isHedgingEnabled() {
+    return this.hedgeDelayMillis > 0 || this.hedgePercentile > 0;
+  }
+
+  public int getCircuitBreakerFailureThreshold() {
+    return this.circuitBreakerFailureThreshold;
+  }
+
+  public long getCircuitBreakerOpenMillis() {
+    return this.circuitBreakerOpenMillis;
+  }
+
+  public LoadBalancerConfig withCircuitBreaker(int failureThreshold, long openMillis) {
+    if (failureThreshold < 0 || openMillis <= 0) {
+      throw new IllegalArgumentException("failureThreshold must not be negative and openMillis must be positive");
+    }
+    this.circuitBreakerFailureThreshold = failureThreshold;
+    this.circuitBreakerOpenMillis = openMillis;
+    return this;
+  }
+
+  public boolean isCircuitBreakerEnabled() {
+    return this.circuitBreakerFailureThreshold > 0;
+  }
+
+  public long getProbeIntervalMillis() {
+    return this.probeIntervalMillis;
+  }
+
+  public ScheduledExecutorService getProbeScheduler() {
+    return this.probeScheduler;
+  }
+
+  public LoadBalancerConfig withProbe(long probeIntervalMillis, ScheduledExecutorService probeScheduler) {
+    this.probeIntervalMillis = probeIntervalMillis;
+    this.probeScheduler = probeScheduler;
+    return this;
+  }
+
+  public boolean isProbeEnabled() {
+    return isCircuitBreakerEnabled() && this.probeIntervalMillis > 0 && this.probeScheduler != null;
+  }
+
+  public int getInitialConcurrencyLimit() {
+    return this.initialConcurrencyLimit;
+  }
+
+  public int getMaxConcurrencyLimit() {
+    return this.maxConcurrencyLimit;
+  }
+
+  /**
+   * Limits the concurrent requests to each server, starting at {@code initialLimit} and adapting up to {@code maxLimit}.
+   */
+  public LoadBalancerConfig withConcurrencyLimit(int initialLimit, int maxLimit) {
+    if (initialLimit <= 0 || maxLimit < initialLimit) {
+      throw new IllegalArgumentException("initialLimit must be positive and maxLimit not below it");
+    }
+    this.initialConcurrencyLimit = initialLimit;
+    this.maxConcurrencyLimit = maxLimit;
+    return this;
+  }
+
+  public boolean isConcurrencyLimitEnabled() {
+    return this.maxConcurrencyLimit > 0;
+  }
+
+  public DriverMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  public LoadBalancerConfig withMetrics(DriverMetrics metrics) {
+    this.metrics = metrics;
+    return this;
+  }
+
+  /**
+   * Returns the retry policy, its retry budget is shared by all load balancers of the driver.
+   */
+  public RetryPolicy getRetryPolicy() {
+    return this.retryPolicy;
+  }
+
+  public LoadBalancerConfig withRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+    return this;
+  }
+}
@@ -14,11 +14,20 @@
 package uniresolver.driver.did.hpass.utils;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
 
 public class MessageUtils {
 
+  private static final Object[] NO_ARGS = new Object[0];
+
   private final ResourceBundle resourceBundle;
+  private final ConcurrentMap<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
 
   public MessageUtils(ResourceBundle resourceBundle) {
     this.resourceBundle = resourceBundle;
@@ -29,27 +38,147 @@ public class MessageUtils {
   }
 
   public String formatMessage(String messageKey) {
-    MessageFormat mf = new MessageFormat(getMessageString(messageKey));
-    return mf.format(new Object[0]);
+    return format(messageKey, NO_ARGS);
   }
 
   public String formatMessage(String messageKey,
       Object arg0) {
-    MessageFormat mf = new MessageFormat(getMessageString(messageKey));
-    Object[] args = new Object[1];
-    args[0] = arg0;
-    return mf.format(args);
+    return format(messageKey, new Object[] {arg0});
   }
 
   public String formatMessage(String messageKey,
       Object arg0,
       Object arg1) {
-    MessageFormat mf = new MessageFormat(getMessageString(messageKey));
-    Object[] args = new Object[2];
-    args[0] = arg0;
-    args[1] = arg1;
-    return mf.format(args);
-  }
-  // Include implementations of formatMessage() for as many arguments
-  // as you need
+    return format(messageKey, new Object[] {arg0, arg1});
+  }
+
+  public String formatMessage(String messageKey,
+      Object arg0,
+      Object arg1,
+      Object arg2) {
+    return format(messageKey, new Object[] {arg0, arg1, arg2});
+  }
+
+  /**
+   * Logs the message at debug level, rendering it only if debug logging is enabled.
+   */
+  public void debug(Logger log, String messageKey, Object... args) {
+    if (log.isDebugEnabled()) {
+      log.debug(format(messageKey, args));
+    }
+  }
+
+  /**
+   * Logs the message at info level, rendering it only if info logging is enabled.
+   */
+  public void info(Logger log, String messageKey, Object... args) {
+    if (log.isInfoEnabled()) {
+      log.info(format(messageKey, args));
+    }
+  }
+
+  /**
+   * Logs the message at warn level, rendering it only if warn logging is enabled.
+   */
+  public void warn(Logger log, String messageKey, Object... args) {
+    if (log.isWarnEnabled()) {
+      log.warn(format(messageKey, args));
+    }
+  }
+
+  private String format(String messageKey, Object[] args) {
+    CompiledTemplate template = this.templates.get(messageKey);
+    if (template == null) {
+      template = this.templates.computeIfAbsent(messageKey, key -> CompiledTemplate.compile(getMessageString(key)));
+    }
+    return template.format(args);
+  }
+
+  /**
+   * Message pattern parsed once per key.
+   *
+   * <p>Patterns made only of literal text and plain {@code {n}} placeholders are rendered by concatenation. Anything
+   * else (quotes, format types, number or date arguments) goes through a copy of the parsed {@link MessageFormat},
+   * since {@code MessageFormat} is not thread-safe, so the output is always the same as {@code MessageFormat}'s.
+   */
+  private static final class CompiledTemplate {
+
+    private final MessageFormat messageFormat;
+    private final String[] literals;
+    private final int[] argumentIndexes;
+
+    private CompiledTemplate(MessageFormat messageFormat, String[] literals, int[] argumentIndexes) {
+      this.messageFormat = messageFormat;
+      this.literals = literals;
+      this.argumentIndexes = argumentIndexes;
+    }
+
+    static CompiledTemplate compile(String pattern) {
+      MessageFormat messageFormat = new MessageFormat(pattern);
+      if (pattern.indexOf('\'') >= 0) {
+        return new CompiledTemplate(messageFormat, null, null);
+      }
+
+      List<String> literals = new ArrayList<>();
+      List<Integer> argumentIndexes = new ArrayList<>();
+      int start = 0;
+      int open = pattern.indexOf('{');
+      while (open >= 0) {
+        int close = pattern.indexOf('}', open);
+        if (close < 0 || !isArgumentIndex(pattern, open + 1, close)) {
+          return new CompiledTemplate(messageFormat, null, null);
+        }
+        literals.add(pattern.substring(start, open));
+        argumentIndexes.add(Integer.parseInt(pattern.substring(open + 1, close)));
+        start = close + 1;
+        open = pattern.indexOf('{', start);
+      }
+      if (pattern.indexOf('}', start) >= 0) {
+        return new CompiledTemplate(messageFormat, null, null);
+      }
+      literals.add(pattern.substring(start));
+
+      return new CompiledTemplate(messageFormat, literals.toArray(new String[0]),
+          argumentIndexes.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static boolean isArgumentIndex(String pattern, int start, int end) {
+      if (start == end || end - start > 2) {
+        return false;
+      }
+      for (int i = start; i < end; i++) {
+        if (!Character.isDigit(pattern.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    String format(Object[] args) {
+      if (this.literals == null || needsMessageFormat(args)) {
+        return ((MessageFormat) this.messageFormat.clone()).format(args);
+      }
+
+      StringBuilder sb = new StringBuilder(64);
+      for (int i = 0; i < this.argumentIndexes.length; i++) {
+        sb.append(this.literals[i]);
+        int index = this.argumentIndexes[i];
+        if (index < args.length) {
+          sb.append(args[index]);
+        } else {
+          sb.append('{').append(index).append('}');
+        }
+      }
+      return sb.append(this.literals[this.literals.length - 1]).toString();
+    }
+
+    private static boolean needsMessageFormat(Object[] args) {
+      for (Object arg : args) {
+        if (arg instanceof Number || arg instanceof Date) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
 }
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only file of cache entries, one JSON object per line, that lets a restarted driver start with warm caches.
+ *
+ * <p>Entries are appended by a single background thread. When it falls behind, new entries are dropped, they are
+ * written again with the next resolution anyway. A later line for the same namespace and key replaces an earlier one.
+ * Once the file grows beyond {@code maxBytes} it is compacted to the latest entry per key, newest first, up to half of
+ * the limit.
+ */
+public class PersistentCache implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(PersistentCache.class);
+  private static final int MAX_PENDING_WRITES = 1024;
+  private static final String NAMESPACE = "namespace";
+  private static final String KEY = "key";
+  private static final String STORED_AT = "storedAt";
+  private static final String VALUE = "value";
+
+  private final Path file;
+  private final long maxBytes;
+  private final ObjectMapper objectMapper;
+  private final MessageUtils messageUtils;
+  private final ThreadPoolExecutor writer;
+  // only used by the writer thread once constructed
+  private OutputStream out;
+  private long size;
+
+  public PersistentCache(Path file, long maxBytes, ObjectMapper objectMapper, MessageUtils messageUtils) throws IOException {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.file = file;
+    this.maxBytes = maxBytes;
+    this.objectMapper = objectMapper;
+    this.messageUtils = messageUtils;
+
+    Path directory = file.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    this.size = Files.exists(file) ? Files.size(file) : 0;
+    if (this.size > maxBytes) {
+      compact();
+    }
+    this.out = openForAppend();
+    this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING_WRITES),
+        new DaemonThreadFactory("hpass-persistent-cache"), new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  /**
+   * Reads the latest entry per namespace and key, oldest first. Lines that cannot be parsed, like a line cut short by a
+   * crash, are skipped.
+   */
+  public List<Entry> load() throws IOException {
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    if (!Files.exists(this.file)) {
+      return new ArrayList<>();
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        Entry entry = parse(line);
+        if (entry != null) {
+          // a rewritten key moves to the position of its latest line
+          String id = entry.namespace + '\n' + entry.key;
+          entries.remove(id);
+          entries.put(id, entry);
+        }
+      }
+    }
+
+    List<Entry> latest = new ArrayList<>(entries.values());
+    latest.sort(Comparator.comparingLong(Entry::getStoredAt));
+    return latest;
+  }
+
+  public void put(String namespace, String key, Object value) {
+    long storedAt = System.currentTimeMillis();
+    this.writer.execute(() -> append(namespace, key, storedAt, value));
+  }
+
+  public Path getFile() {
+    return this.file;
+  }
+
+  public long getMaxBytes() {
+    return this.maxBytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.writer.shutdown();
+    try {
+      this.writer.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.out.close();
+  }
+
+  private void append(String namespace, String key, long storedAt, Object value) {
+    try {
+      byte[] line = toLine(namespace, key, storedAt, this.objectMapper.valueToTree(value));
+      this.out.write(line);
+      this.size += line.length;
+      // several pending entries are written with a single flush
+      if (this.writer.getQueue().isEmpty()) {
+        this.out.flush();
+      }
+
+      if (this.size > this.maxBytes) {
+        this.out.close();
+        try {
+          compact();
+        } finally {
+          this.out = openForAppend();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      this.messageUtils.warn(log, "PERSISTENT_CACHE_WRITE_FAILED", this.file, e.getMessage());
+    }
+  }
+
+  private void compact() throws IOException {
+    List<Entry> entries = load();
+    Collections.reverse(entries);
+
+    List<byte[]> lines = new ArrayList<>();
+    long compactedSize = 0;
+    for (Entry entry : entries) {
+      byte[] line = toLine(entry.namespace, entry.key, entry.storedAt, entry.value);
+      if (compactedSize + line.length > this.maxBytes / 2) {
+        break;
+      }
+      lines.add(line);
+      compactedSize += line.length;
+    }
+    Collections.reverse(lines);
+
+    Path compactedFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    try (OutputStream compacted = new BufferedOutputStream(Files.newOutputStream(compactedFile))) {
+      for (byte[] line : lines) {
+        compacted.write(line);
+      }
+    }
+    Files.move(compactedFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    this.size = compactedSize;
+  }
+
+  private OutputStream openForAppend() throws IOException {
+    return new BufferedOutputStream(Files.newOutputStream(this.file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+  }
+
+  private byte[] toLine(String namespace, String key, long storedAt, JsonNode value) throws IOException {
+    ObjectNode line = this.objectMapper.createObjectNode();
+    line.put(NAMESPACE, namespace);
+    line.put(KEY, key);
+    line.put(STORED_AT, storedAt);
+    line.set(VALUE, value);
+    byte[] json = this.objectMapper.writeValueAsBytes(line);
+    byte[] bytes = new byte[json.length + 1];
+    System.arraycopy(json, 0, bytes, 0, json.length);
+    bytes[json.length] = '\n';
+    return bytes;
+  }
+
+  private Entry parse(String line) {
+    try {
+      JsonNode json = this.objectMapper.readTree(line);
+      if (json == null || !json.hasNonNull(NAMESPACE) || !json.hasNonNull(KEY) || !json.hasNonNull(STORED_AT)
+          || !json.hasNonNull(VALUE)) {
+        return null;
+      }
+      return new Entry(json.get(NAMESPACE).asText(), json.get(KEY).asText(), json.get(STORED_AT).asLong(), json.get(VALUE));
+    } catch (IOException e) {
+      this.messageUtils.debug(log, "PERSISTENT_CACHE_ENTRY_SKIPPED", this.file, e.getMessage());
+      return null;
+    }
+  }
+
+  public static final class Entry {
+
+    private final String namespace;
+    private final String key;
+    private final long storedAt;
+    private final JsonNode value;
+
+    private Entry(String namespace, String key, long storedAt, JsonNode value) {
+      this.namespace = namespace;
+      this.key = key;
+      this.storedAt = storedAt;
+      this.value = value;
+    }
+
+    public String getNamespace() {
+      return this.namespace;
+    }
+
+    public String getKey() {
+      return this.key;
+    }
+
+    public long getStoredAt() {
+      return this.storedAt;
+    }
+
+    public JsonNode getValue() {
+      return this.value;
+    }
+  }
+}
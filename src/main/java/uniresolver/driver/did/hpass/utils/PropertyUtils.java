@@ -13,12 +13,45 @@
 
 package uniresolver.driver.did.hpass.utils;
 
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_LOGIN_URL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_BATCH_CONCURRENCY;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_BATCH_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_URL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_HEDGE_PERCENTILE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_PASSWORD;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_USER;
 
 import io.github.cdimascio.dotenv.Dotenv;
@@ -56,7 +89,40 @@ public class PropertyUtils {
         UNIRESOLVER_DRIVER_AUTH_ENABLED,
         UNIRESOLVER_DRIVER_USER,
         UNIRESOLVER_DRIVER_PASSWORD,
-        UNIRESOLVER_DRIVER_AUTH_LOGIN_URL
+        UNIRESOLVER_DRIVER_AUTH_LOGIN_URL,
+        UNIRESOLVER_DRIVER_CACHE_ENABLED,
+        UNIRESOLVER_DRIVER_CACHE_MAX_SIZE,
+        UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS,
+        UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE,
+        UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS,
+        UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE,
+        UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS,
+        UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS,
+        UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS,
+        UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY,
+        UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS,
+        UNIRESOLVER_DRIVER_HEDGE_PERCENTILE,
+        UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+        UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS,
+        UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS,
+        UNIRESOLVER_DRIVER_BATCH_MAX_SIZE,
+        UNIRESOLVER_DRIVER_BATCH_CONCURRENCY,
+        UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES,
+        UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE,
+        UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES,
+        UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL,
+        UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS,
+        UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS,
+        UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS,
+        UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS,
+        UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO,
+        UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE,
+        UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL,
+        UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX,
+        UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT,
+        UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE,
+        UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS,
+        UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS
     };
     for (String key : keys) {
       String envValue = dotenv.get(key);
@@ -76,6 +142,39 @@ public class PropertyUtils {
     properties.putIfAbsent(UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED, "false");
     properties.putIfAbsent(UNIRESOLVER_DRIVER_AUTH_ENABLED, "true");
     properties.putIfAbsent(UNIRESOLVER_DRIVER_AUTH_LOGIN_URL, "https://dev1.wh-hpass.dev.watson-health.ibm.com/api/v1/hpass/users/login");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CACHE_ENABLED, "true");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CACHE_MAX_SIZE, "10000");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS, "300");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_NEGATIVE_CACHE_MAX_SIZE, "10000");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_NEGATIVE_CACHE_TTL_SECONDS, "30");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_SIZE, "1000");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS, "60");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_REGISTRY_CACHE_MAX_STALE_SECONDS, "3600");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_LOAD_BALANCER_IDLE_SECONDS, "600");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_LOAD_BALANCER_POLICY, ServerSelectionPolicy.LEAST_LOADED.getName());
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_HEDGE_DELAY_MILLIS, "0");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_HEDGE_PERCENTILE, "0");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_FAILURE_THRESHOLD, "5");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_OPEN_SECONDS, "30");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CIRCUIT_BREAKER_PROBE_SECONDS, "0");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_BATCH_MAX_SIZE, "500");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_BATCH_CONCURRENCY, "16");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES, "1048576");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE, "");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_PERSISTENT_CACHE_MAX_BYTES, "16777216");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_RESOLVE_CACHE_CONTROL, "public, max-age=60");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_RESOLUTION_TIMEOUT_MILLIS, "10000");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CONNECT_TIMEOUT_MILLIS, "2000");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_RETRY_BACKOFF_BASE_MILLIS, "20");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_RETRY_BACKOFF_MAX_MILLIS, "500");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_RETRY_BUDGET_RATIO, "0.2");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_RETRY_BUDGET_RESERVE, "20");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_INITIAL, "0");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_CONCURRENCY_LIMIT_MAX, "200");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT, "256");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_ADMISSION_MAX_QUEUE, "1024");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_ADMISSION_QUEUE_TARGET_MILLIS, "50");
+    properties.putIfAbsent(UNIRESOLVER_DRIVER_ADMISSION_QUEUE_INTERVAL_MILLIS, "500");
 
     String message = null;
     switch (properties.get(UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED).toString()) {
@@ -114,4 +213,26 @@ public class PropertyUtils {
 
     return value;
   }
+
+  public long getLongPropertyByKey(Map<String, Object> properties, String key) throws ResolutionException {
+    String value = getPropertyByKey(properties, key);
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      String message = this.messageUtils.formatMessage("ILLEGAL_ARGUMENT", key, e.getMessage());
+      log.error(message);
+      throw new ResolutionException(message, e);
+    }
+  }
+
+  public double getDoublePropertyByKey(Map<String, Object> properties, String key) throws ResolutionException {
+    String value = getPropertyByKey(properties, key);
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      String message = this.messageUtils.formatMessage("ILLEGAL_ARGUMENT", key, e.getMessage());
+      log.error(message);
+      throw new ResolutionException(message, e);
+    }
+  }
 }
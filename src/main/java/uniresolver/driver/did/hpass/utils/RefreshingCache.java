@@ -0,0 +1,160 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stale-while-revalidate cache: once an entry has expired it is still returned, while a single background refresh per
+ * key replaces it. Only a missing entry makes the caller wait for the loader, concurrent callers share one load. An entry
+ * that could not be refreshed within {@code maxStaleMillis} after it expired is dropped, so the next caller waits for the
+ * loader again and sees its error.
+ */
+public class RefreshingCache<K, V> {
+
+  private static final Logger log = LoggerFactory.getLogger(RefreshingCache.class);
+  private final int maxSize;
+  private final long ttlMillis;
+  private final long maxStaleMillis;
+  private final Executor refreshExecutor;
+  private final MessageUtils messageUtils;
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final Map<K, Boolean> refreshesInFlight = new ConcurrentHashMap<>();
+  private final SingleFlight<K, V> loads = new SingleFlight<>();
+
+  public RefreshingCache(int maxSize, long ttlMillis, long maxStaleMillis, Executor refreshExecutor, MessageUtils messageUtils) {
+    if (maxSize <= 0 || ttlMillis <= 0 || maxStaleMillis < 0) {
+      throw new IllegalArgumentException("maxSize and ttlMillis must be positive, maxStaleMillis must not be negative");
+    }
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlMillis;
+    this.maxStaleMillis = maxStaleMillis;
+    this.refreshExecutor = refreshExecutor;
+    this.messageUtils = messageUtils;
+  }
+
+  public CompletableFuture<V> get(K key, Loader<K, V> loader) {
+    Entry<V> entry = this.entries.get(key);
+    long now = System.currentTimeMillis();
+    if (entry != null && entry.expiresAt + this.maxStaleMillis <= now) {
+      this.entries.remove(key, entry);
+      entry = null;
+    }
+    if (entry == null) {
+      return loadAndStore(key, loader);
+    }
+
+    if (entry.expiresAt <= now) {
+      refreshInBackground(key, loader);
+    }
+    return CompletableFuture.completedFuture(entry.value);
+  }
+
+  /**
+   * Adds an entry that was stored at {@code storedAt}, e.g. read back from a {@link PersistentCache}. An expired entry is
+   * kept as well, it is served while the first request for it refreshes it.
+   */
+  public void restore(K key, V value, long storedAt) {
+    store(key, value, storedAt + this.ttlMillis);
+  }
+
+  public void invalidate(K key) {
+    this.entries.remove(key);
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+
+  private void refreshInBackground(K key, Loader<K, V> loader) {
+    if (this.refreshesInFlight.putIfAbsent(key, Boolean.TRUE) != null) {
+      return;
+    }
+
+    try {
+      this.refreshExecutor.execute(() -> loadAndStore(key, loader).whenComplete((value, error) -> {
+        if (error != null) {
+          this.messageUtils.warn(log, "BACKGROUND_REFRESH_FAILED", key, String.valueOf(this.maxStaleMillis),
+              FutureUtils.unwrap(error).getMessage());
+        }
+        this.refreshesInFlight.remove(key);
+      }));
+    } catch (RejectedExecutionException e) {
+      this.refreshesInFlight.remove(key);
+    }
+  }
+
+  // cold misses and refreshes of the same key share one load
+  private CompletableFuture<V> loadAndStore(K key, Loader<K, V> loader) {
+    return this.loads.execute(key, () -> load(key, loader).thenApply(value -> {
+      store(key, value);
+      return value;
+    }));
+  }
+
+  private CompletableFuture<V> load(K key, Loader<K, V> loader) {
+    try {
+      return loader.load(key);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void store(K key, V value) {
+    store(key, value, System.currentTimeMillis() + this.ttlMillis);
+  }
+
+  private void store(K key, V value, long expiresAt) {
+    this.entries.put(key, new Entry<>(value, expiresAt));
+
+    // networks are few, a linear scan for the oldest entry is cheap and only happens when the bound is exceeded
+    while (this.entries.size() > this.maxSize) {
+      K oldestKey = null;
+      long oldestExpiry = Long.MAX_VALUE;
+      for (Map.Entry<K, Entry<V>> candidate : this.entries.entrySet()) {
+        if (candidate.getValue().expiresAt < oldestExpiry) {
+          oldestExpiry = candidate.getValue().expiresAt;
+          oldestKey = candidate.getKey();
+        }
+      }
+      if (oldestKey == null) {
+        break;
+      }
+      this.entries.remove(oldestKey);
+    }
+  }
+
+  @FunctionalInterface
+  public interface Loader<K, V> {
+
+    CompletableFuture<V> load(K key);
+  }
+
+  private static final class Entry<V> {
+
+    private final V value;
+    private final long expiresAt;
+
+    private Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -15,47 +15,89 @@ package uniresolver.driver.did.hpass.utils;
 
 import static uniresolver.driver.did.hpass.constants.RegistryKeys.URL_PARAMETER_1;
 
-import com.netflix.client.DefaultLoadBalancerRetryHandler;
-import com.netflix.client.RetryHandler;
 import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.IRule;
 import com.netflix.loadbalancer.LoadBalancerBuilder;
 import com.netflix.loadbalancer.LoadBalancerStats;
 import com.netflix.loadbalancer.Server;
-import com.netflix.loadbalancer.reactive.LoadBalancerCommand;
-import com.netflix.loadbalancer.reactive.ServerOperation;
+import com.netflix.loadbalancer.ServerStats;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import rx.Observable;
 import uniresolver.ResolutionException;
 
 public class RestClientLoadBalancer {
 
   private static final Logger log = LoggerFactory.getLogger(RestClientLoadBalancer.class);
+  private static final int LATENCY_SAMPLES = 256;
   private final BaseLoadBalancer loadBalancer;
-  private final RetryHandler retryHandler;
+  private final RetryPolicy retryPolicy;
+  private final ServerLoadListener serverLoadListener;
+  private final LoadBalancerConfig config;
+  private final LatencyTracker latencyTracker;
+  private final Map<Server, CircuitBreaker> circuitBreakers = new HashMap<>();
+  private final Map<Server, ConcurrencyLimiter> concurrencyLimiters = new HashMap<>();
+  private final ScheduledFuture<?> probeTask;
   private final List<Server> serverList;
   private final HttpClient httpClient;
   private final MessageUtils messageUtils;
 
   public RestClientLoadBalancer(HttpClient httpClient, MessageUtils messageUtils, List<Server> urlList) {
+    this(httpClient, messageUtils, urlList, new LoadBalancerConfig());
+  }
+
+  public RestClientLoadBalancer(HttpClient httpClient, MessageUtils messageUtils, List<Server> urlList, LoadBalancerConfig config) {
     this.serverList = urlList;
-    this.loadBalancer = LoadBalancerBuilder.newBuilder().buildFixedServerListLoadBalancer(this.serverList);
-    // retry handler does not retry on same server, but on a different server
-    this.retryHandler = new DefaultLoadBalancerRetryHandler(0, 10, true);
+    this.config = config;
+    IRule rule = config.getServerSelectionPolicy().createRule();
+    this.loadBalancer = LoadBalancerBuilder.newBuilder().withRule(rule).buildFixedServerListLoadBalancer(this.serverList);
+    this.serverLoadListener = rule instanceof ServerLoadListener ? (ServerLoadListener) rule : ServerLoadListener.NONE;
+    this.latencyTracker = new LatencyTracker(LATENCY_SAMPLES, Math.max(1, config.getHedgePercentile()));
+    this.retryPolicy = config.getRetryPolicy();
     this.httpClient = httpClient;
     this.messageUtils = messageUtils;
+
+    if (config.isCircuitBreakerEnabled()) {
+      for (Server server : this.serverList) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(config.getCircuitBreakerFailureThreshold(),
+            config.getCircuitBreakerOpenMillis());
+        this.circuitBreakers.put(server, circuitBreaker);
+      }
+    }
+    if (config.isConcurrencyLimitEnabled()) {
+      for (Server server : this.serverList) {
+        this.concurrencyLimiters.put(server, new ConcurrencyLimiter(config.getInitialConcurrencyLimit(),
+            config.getMaxConcurrencyLimit(), ConcurrencyLimiter.DEFAULT_RTT_TOLERANCE));
+      }
+    }
+    if (config.isProbeEnabled()) {
+      this.probeTask = config.getProbeScheduler().scheduleWithFixedDelay(this::probeOpenServers, config.getProbeIntervalMillis(),
+          config.getProbeIntervalMillis(), TimeUnit.MILLISECONDS);
+    } else {
+      this.probeTask = null;
+    }
   }
 
   public HttpResponse<String> makeRequestWithRetry(HttpRequest.Builder builder, final String parameters) throws Exception {
     HttpResponse<String> httpResponse = null;
 
     try {
-      httpResponse = makeRequest(this.httpClient, builder, parameters, this.messageUtils);
+      httpResponse = FutureUtils.await(makeRequestWithRetryAsync(builder, parameters));
     } catch (Exception e) {
       String message = this.messageUtils.formatMessage("SERVER_REQUEST_UNSUCCESSFUL", e.getMessage());
       log.error(message);
@@ -65,33 +107,349 @@ public class RestClientLoadBalancer {
     return httpResponse;
   }
 
-  private HttpResponse makeRequest(HttpClient httpClient, HttpRequest.Builder builder, final String parameter, MessageUtils messageUtils)
-      throws Exception {
-    return LoadBalancerCommand.<HttpResponse>builder()
-        .withLoadBalancer(loadBalancer)
-        .withRetryHandler(retryHandler)
-        .build()
-        .submit(new ServerOperation<HttpResponse>() {
-          @Override
-          public Observable<HttpResponse> call(Server server) {
-            // Workaround: server.getHost() provides full URL except parameters
-            String urlString = server.getHost().replace(URL_PARAMETER_1, parameter);
-            builder.uri(URI.create(urlString));
-            HttpRequest request = builder.build();
-
-            try {
-              HttpResponse<String> httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-              if (httpResponse.statusCode() / 100 != 2) {
-                throw new ResolutionException("invalid status code");
-              }
-              return Observable.just(httpResponse);
-            } catch (Exception e) {
-              String message = messageUtils.formatMessage("SERVER_REQUEST_UNSUCCESSFUL", server.getHost());
-              log.warn(message);
-              return Observable.error(e);
-            }
-          }
-        }).toBlocking().single();
+  public CompletableFuture<HttpResponse<String>> makeRequestWithRetryAsync(HttpRequest.Builder builder, final String parameters) {
+    return makeRequestWithRetryAsync(builder, parameters, HttpResponse.BodyHandlers.ofString());
+  }
+
+  public <T> CompletableFuture<HttpResponse<T>> makeRequestWithRetryAsync(HttpRequest.Builder builder, final String parameters,
+      HttpResponse.BodyHandler<T> bodyHandler) {
+    return makeRequestWithRetryAsync(builder, parameters, bodyHandler, Deadline.none());
+  }
+
+  /**
+   * Sends the request and retries it on other servers until the deadline, every attempt only gets the time that is left.
+   */
+  public <T> CompletableFuture<HttpResponse<T>> makeRequestWithRetryAsync(HttpRequest.Builder builder, final String parameters,
+      HttpResponse.BodyHandler<T> bodyHandler, Deadline deadline) {
+    Exchange<T> exchange = new Exchange<>(builder, parameters, bodyHandler, deadline);
+    this.config.getMetrics().time(DriverMetrics.Stage.HTTP_REQUEST, exchange.result);
+    makeRequest(exchange, null);
+    return exchange.result;
+  }
+
+  private void makeRequest(Exchange<?> exchange, Server failedServer) {
+    if (exchange.deadline.isExpired()) {
+      String message = this.messageUtils.formatMessage("REQUEST_DEADLINE_EXCEEDED", exchange.parameter,
+          String.valueOf(exchange.deadline.getTimeoutMillis()), String.valueOf(exchange.retriesOnNextServer.get()));
+      exchange.result.completeExceptionally(new Deadline.DeadlineExceededException(message));
+      return;
+    }
+
+    Server server = chooseServer(failedServer);
+    if (server == null && isConcurrencyLimitReached()) {
+      // an overloaded backend fails the request right away instead of letting requests pile up in the driver
+      String message = this.messageUtils.formatMessage("CONCURRENCY_LIMIT_EXCEEDED", exchange.parameter, this.serverList);
+      this.config.getMetrics().recordConcurrencyLimited();
+      exchange.result.completeExceptionally(new ResolutionException(message));
+      return;
+    }
+    if (server == null) {
+      String message = this.messageUtils.formatMessage("NO_AVAILABLE_SERVER", this.serverList);
+      exchange.result.completeExceptionally(new ResolutionException(message));
+      return;
+    }
+
+    sendRequest(exchange, server);
+    scheduleHedgedRequest(exchange, server);
+  }
+
+  private void scheduleHedgedRequest(Exchange<?> exchange, Server server) {
+    long hedgeDelayMillis = getHedgeDelayMillis();
+    if (hedgeDelayMillis <= 0 || this.serverList.size() < 2 || exchange.hedged.get()
+        || hedgeDelayMillis >= exchange.deadline.remainingMillis()) {
+      return;
+    }
+
+    int attempt = exchange.retriesOnNextServer.get();
+    CompletableFuture.delayedExecutor(hedgeDelayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+      // only hedge the request that is still the current attempt and has not been answered yet
+      if (exchange.result.isDone() || exchange.retriesOnNextServer.get() != attempt || !exchange.hedged.compareAndSet(false, true)) {
+        return;
+      }
+
+      Server hedgeServer = chooseServer(server);
+      if (hedgeServer == null) {
+        return;
+      }
+      if (hedgeServer.equals(server)) {
+        releaseCircuitBreaker(hedgeServer);
+        releaseConcurrencyLimit(hedgeServer);
+        return;
+      }
+
+      this.messageUtils.debug(log, "HEDGED_REQUEST_SENT", hedgeServer.getHost(), hedgeDelayMillis, server.getHost());
+      this.config.getMetrics().recordHedgedRequest();
+      sendRequest(exchange, hedgeServer);
+    });
+  }
+
+  private Server chooseServer(Server failedServer) {
+    // the rule may use the server that failed last to pick a different one
+    Server server = this.loadBalancer.chooseServer(failedServer);
+    if (server == null || tryAcquire(server)) {
+      return server;
+    }
+
+    // servers with an open circuit or without free concurrency are skipped without sending a request
+    for (Server candidate : this.loadBalancer.getReachableServers()) {
+      if (!candidate.equals(server) && !candidate.equals(failedServer) && tryAcquire(candidate)) {
+        return candidate;
+      }
+    }
+    if (failedServer != null && this.serverList.contains(failedServer) && tryAcquire(failedServer)) {
+      return failedServer;
+    }
+    return null;
+  }
+
+  private boolean tryAcquire(Server server) {
+    ConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiters.get(server);
+    if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+      return false;
+    }
+    CircuitBreaker circuitBreaker = this.circuitBreakers.get(server);
+    if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+      if (concurrencyLimiter != null) {
+        concurrencyLimiter.release();
+      }
+      return false;
+    }
+    return true;
+  }
+
+  // only if every server is at its limit, a server skipped for its open circuit is not an overload of the backend
+  private boolean isConcurrencyLimitReached() {
+    if (this.concurrencyLimiters.isEmpty()) {
+      return false;
+    }
+    for (ConcurrencyLimiter concurrencyLimiter : this.concurrencyLimiters.values()) {
+      if (concurrencyLimiter.getInFlight() < concurrencyLimiter.getLimit()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long getHedgeDelayMillis() {
+    if (this.config.getHedgePercentile() > 0) {
+      long percentileNanos = this.latencyTracker.getPercentileNanos();
+      if (percentileNanos >= 0) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(percentileNanos));
+      }
+    }
+    return this.config.getHedgeDelayMillis();
+  }
+
+  private <T> void sendRequest(Exchange<T> exchange, Server server) {
+    exchange.pending.incrementAndGet();
+
+    HttpRequest request;
+    try {
+      // Workaround: server.getHost() provides full URL except parameters
+      String urlString = server.getHost().replace(URL_PARAMETER_1, exchange.parameter);
+      request = exchange.deadline.applyTo(exchange.builder.copy().uri(URI.create(urlString))).build();
+    } catch (IllegalArgumentException e) {
+      releaseCircuitBreaker(server);
+      releaseConcurrencyLimit(server);
+      onFailure(exchange, server, e);
+      return;
+    }
+
+    ServerStats serverStats = this.loadBalancer.getLoadBalancerStats().getSingleServerStat(server);
+    serverStats.incrementActiveRequestsCount();
+    serverStats.incrementNumRequests();
+    this.serverLoadListener.onRequestStart(server);
+    long startTime = System.nanoTime();
+
+    CompletableFuture<HttpResponse<T>> response = this.httpClient.sendAsync(request, exchange.bodyHandler);
+    exchange.inFlight.add(response);
+    response.whenComplete((httpResponse, error) -> {
+      exchange.inFlight.remove(response);
+      long latencyNanos = System.nanoTime() - startTime;
+      serverStats.decrementActiveRequestsCount();
+      recordConcurrencySample(server, latencyNanos, httpResponse, FutureUtils.unwrap(error));
+
+      if (exchange.result.isDone()) {
+        // the other request of a hedged pair already answered, this one was cancelled or is no longer needed
+        this.serverLoadListener.onRequestEnd(server, latencyNanos, false);
+        if (error == null) {
+          recordCircuitBreakerSuccess(server);
+        } else {
+          releaseCircuitBreaker(server);
+        }
+        return;
+      }
+
+      serverStats.noteResponseTime(latencyNanos / 1_000_000.0);
+      this.serverLoadListener.onRequestEnd(server, latencyNanos, error != null || !RetryPolicy.isAnswer(httpResponse.statusCode()));
+
+      if (error != null) {
+        if (FutureUtils.unwrap(error) instanceof CancellationException) {
+          releaseCircuitBreaker(server);
+        } else if (FutureUtils.unwrap(error) instanceof BoundedBodyHandler.BodyTooLargeException) {
+          // the server answered, only its response was rejected
+          recordCircuitBreakerSuccess(server);
+        } else {
+          recordCircuitBreakerFailure(server);
+        }
+        serverStats.incrementSuccessiveConnectionFailureCount();
+        onFailure(exchange, server, FutureUtils.unwrap(error));
+        return;
+      }
+
+      // any HTTP response shows that the server is reachable
+      recordCircuitBreakerSuccess(server);
+      serverStats.clearSuccessiveConnectionFailureCount();
+      if (!RetryPolicy.isAnswer(httpResponse.statusCode())) {
+        long retryAfterMillis = RetryPolicy.parseRetryAfter(httpResponse.headers().firstValue("Retry-After").orElse(null));
+        onFailure(exchange, server, new RetryPolicy.StatusException("invalid status code " + httpResponse.statusCode(),
+            httpResponse.statusCode(), retryAfterMillis));
+        return;
+      }
+
+      this.retryPolicy.onAnswer();
+      this.latencyTracker.record(latencyNanos);
+      exchange.pending.decrementAndGet();
+      if (exchange.result.complete(httpResponse)) {
+        exchange.cancelInFlight();
+      }
+    });
+  }
+
+  private void onFailure(Exchange<?> exchange, Server server, Throwable error) {
+    this.loadBalancer.getLoadBalancerStats().getSingleServerStat(server).addToFailureCount();
+    this.messageUtils.warn(log, "SERVER_REQUEST_UNSUCCESSFUL", server.getHost());
+
+    // while the other request of a hedged pair is still running, it decides about the outcome
+    if (exchange.pending.decrementAndGet() > 0 || exchange.result.isDone()) {
+      return;
+    }
+
+    if (RetryPolicy.classify(error) == RetryPolicy.Failure.DEFINITIVE) {
+      exchange.result.completeExceptionally(error);
+      return;
+    }
+    int retries = exchange.retriesOnNextServer.get();
+    if (retries >= this.retryPolicy.getMaxRetries()) {
+      String message = this.messageUtils.formatMessage("NUMBER_OF_RETRIES_ON_NEXT_SERVER_EXCEEDED",
+          String.valueOf(this.retryPolicy.getMaxRetries()), server);
+      exchange.result.completeExceptionally(new ResolutionException(message, error));
+      return;
+    }
+    // a retry that could only start after the deadline is not worth waiting for
+    long backoffMillis = this.retryPolicy.getBackoffMillis(retries, error);
+    if (exchange.deadline.isBounded() && backoffMillis >= exchange.deadline.remainingMillis()) {
+      String message = this.messageUtils.formatMessage("REQUEST_DEADLINE_EXCEEDED", exchange.parameter,
+          String.valueOf(exchange.deadline.getTimeoutMillis()), String.valueOf(retries));
+      exchange.result.completeExceptionally(new Deadline.DeadlineExceededException(message));
+      return;
+    }
+    if (!this.retryPolicy.tryAcquireRetry()) {
+      String message = this.messageUtils.formatMessage("RETRY_BUDGET_EXHAUSTED", exchange.parameter, error.getMessage());
+      this.config.getMetrics().recordRetryBudgetExhausted();
+      exchange.result.completeExceptionally(new ResolutionException(message, error));
+      return;
+    }
+
+    // retries go to a different server, not the one that failed
+    exchange.retriesOnNextServer.incrementAndGet();
+    this.config.getMetrics().recordRetry();
+    if (backoffMillis <= 0) {
+      makeRequest(exchange, server);
+    } else {
+      CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS).execute(() -> makeRequest(exchange, server));
+    }
+  }
+
+  private void recordCircuitBreakerSuccess(Server server) {
+    CircuitBreaker circuitBreaker = this.circuitBreakers.get(server);
+    if (circuitBreaker != null && circuitBreaker.onSuccess()) {
+      this.messageUtils.info(log, "CIRCUIT_BREAKER_CLOSED", server.getHost());
+    }
+  }
+
+  private void recordCircuitBreakerFailure(Server server) {
+    CircuitBreaker circuitBreaker = this.circuitBreakers.get(server);
+    if (circuitBreaker != null && circuitBreaker.onFailure()) {
+      this.messageUtils.warn(log, "CIRCUIT_BREAKER_OPENED", server.getHost(), this.config.getCircuitBreakerOpenMillis());
+    }
+  }
+
+  private void releaseCircuitBreaker(Server server) {
+    CircuitBreaker circuitBreaker = this.circuitBreakers.get(server);
+    if (circuitBreaker != null) {
+      circuitBreaker.release();
+    }
+  }
+
+  private void recordConcurrencySample(Server server, long latencyNanos, HttpResponse<?> httpResponse, Throwable error) {
+    ConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiters.get(server);
+    if (concurrencyLimiter == null) {
+      return;
+    }
+    if (error instanceof CancellationException) {
+      concurrencyLimiter.release();
+    } else if (error != null) {
+      // a rejected body was still answered in time
+      concurrencyLimiter.onSample(latencyNanos, !(error instanceof BoundedBodyHandler.BodyTooLargeException));
+    } else {
+      concurrencyLimiter.onSample(latencyNanos, !RetryPolicy.isAnswer(httpResponse.statusCode()));
+    }
+  }
+
+  private void releaseConcurrencyLimit(Server server) {
+    ConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiters.get(server);
+    if (concurrencyLimiter != null) {
+      concurrencyLimiter.release();
+    }
+  }
+
+  private void probeOpenServers() {
+    for (Map.Entry<Server, CircuitBreaker> entry : this.circuitBreakers.entrySet()) {
+      if (entry.getValue().getState() != CircuitBreaker.State.OPEN) {
+        continue;
+      }
+
+      Server server = entry.getKey();
+      HttpRequest request;
+      try {
+        request = HttpRequest.newBuilder()
+            .uri(URI.create(server.getHost().replace(URL_PARAMETER_1, "")))
+            .timeout(Duration.ofMillis(this.config.getProbeIntervalMillis()))
+            .GET()
+            .build();
+      } catch (IllegalArgumentException e) {
+        continue;
+      }
+
+      // any HTTP response closes the circuit, a failed probe leaves it open
+      this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((httpResponse, error) -> {
+        if (error == null) {
+          recordCircuitBreakerSuccess(server);
+        } else {
+          this.messageUtils.debug(log, "CIRCUIT_BREAKER_PROBE_FAILED", server.getHost(), error.getMessage());
+        }
+      });
+    }
+  }
+
+  public CircuitBreaker.State getCircuitBreakerState(Server server) {
+    CircuitBreaker circuitBreaker = this.circuitBreakers.get(server);
+    return circuitBreaker == null ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+  }
+
+  /**
+   * Returns the current concurrency limit of the server, 0 if concurrency is not limited.
+   */
+  public int getConcurrencyLimit(Server server) {
+    ConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiters.get(server);
+    return concurrencyLimiter == null ? 0 : concurrencyLimiter.getLimit();
+  }
+
+  public void close() {
+    if (this.probeTask != null) {
+      this.probeTask.cancel(false);
+    }
   }
 
   public LoadBalancerStats getLoadBalancerStats() {
@@ -101,4 +459,30 @@ public class RestClientLoadBalancer {
   public List<Server> getAllServers() {
     return loadBalancer.getServerList(true);
   }
+
+  private static final class Exchange<T> {
+
+    private final HttpRequest.Builder builder;
+    private final String parameter;
+    private final HttpResponse.BodyHandler<T> bodyHandler;
+    private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+    private final AtomicInteger retriesOnNextServer = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean hedged = new AtomicBoolean();
+    private final Deadline deadline;
+    private final Set<CompletableFuture<HttpResponse<T>>> inFlight = ConcurrentHashMap.newKeySet();
+
+    private Exchange(HttpRequest.Builder builder, String parameter, HttpResponse.BodyHandler<T> bodyHandler, Deadline deadline) {
+      this.builder = builder;
+      this.parameter = parameter;
+      this.bodyHandler = bodyHandler;
+      this.deadline = deadline;
+    }
+
+    private void cancelInFlight() {
+      for (CompletableFuture<HttpResponse<T>> request : this.inFlight) {
+        request.cancel(true);
+      }
+    }
+  }
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import com.netflix.loadbalancer.Server;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps one long-lived {@link RestClientLoadBalancer} per distinct server list, so that dynamic environments returned by
+ * the registry keep their per-server statistics between requests. Load balancers that were not used for the idle
+ * period are dropped.
+ */
+public class RestClientLoadBalancerRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(RestClientLoadBalancerRegistry.class);
+  private final HttpClient httpClient;
+  private final MessageUtils messageUtils;
+  private final long idleMillis;
+  private final LoadBalancerConfig config;
+  private final Map<String, Entry> loadBalancers = new ConcurrentHashMap<>();
+  private final AtomicLong nextEvictionCheck = new AtomicLong();
+
+  public RestClientLoadBalancerRegistry(HttpClient httpClient, MessageUtils messageUtils, long idleMillis) {
+    this(httpClient, messageUtils, idleMillis, new LoadBalancerConfig());
+  }
+
+  public RestClientLoadBalancerRegistry(HttpClient httpClient, MessageUtils messageUtils, long idleMillis, LoadBalancerConfig config) {
+    this.httpClient = httpClient;
+    this.messageUtils = messageUtils;
+    this.idleMillis = idleMillis;
+    this.config = config;
+  }
+
+  public RestClientLoadBalancer getLoadBalancer(List<Server> serverList) {
+    long now = System.currentTimeMillis();
+    evictIdleLoadBalancers(now);
+
+    Entry entry = this.loadBalancers.computeIfAbsent(normalize(serverList), key -> {
+      RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(this.httpClient, this.messageUtils, new ArrayList<>(serverList),
+          this.config);
+      this.messageUtils.info(log, "INITIALIZE_DYNAMIC_NETWORK_LOAD_BALANCER", loadBalancer.getAllServers());
+      return new Entry(loadBalancer);
+    });
+    entry.lastAccess = now;
+    return entry.loadBalancer;
+  }
+
+  public int size() {
+    return this.loadBalancers.size();
+  }
+
+  // snapshot keyed by the normalized server list
+  public Map<String, RestClientLoadBalancer> getLoadBalancers() {
+    Map<String, RestClientLoadBalancer> loadBalancers = new TreeMap<>();
+    this.loadBalancers.forEach((key, entry) -> loadBalancers.put(key, entry.loadBalancer));
+    return loadBalancers;
+  }
+
+  private void evictIdleLoadBalancers(long now) {
+    long nextCheck = this.nextEvictionCheck.get();
+    if (now < nextCheck || !this.nextEvictionCheck.compareAndSet(nextCheck, now + this.idleMillis)) {
+      return;
+    }
+
+    this.loadBalancers.entrySet().removeIf(entry -> {
+      boolean idle = now - entry.getValue().lastAccess >= this.idleMillis;
+      if (idle) {
+        entry.getValue().loadBalancer.close();
+        this.messageUtils.info(log, "REMOVE_IDLE_DYNAMIC_NETWORK_LOAD_BALANCER", entry.getKey());
+      }
+      return idle;
+    });
+  }
+
+  private static String normalize(List<Server> serverList) {
+    // server list order returned by the registry must not create a separate load balancer
+    TreeSet<String> hosts = new TreeSet<>();
+    for (Server server : serverList) {
+      hosts.add(server.getHost().trim());
+    }
+    return String.join(",", hosts);
+  }
+
+  private static final class Entry {
+
+    private final RestClientLoadBalancer loadBalancer;
+    private volatile long lastAccess;
+
+    private Entry(RestClientLoadBalancer loadBalancer) {
+      this.loadBalancer = loadBalancer;
+    }
+  }
+}
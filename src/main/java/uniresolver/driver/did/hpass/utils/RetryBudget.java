@@ -0,0 +1,60 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a ratio of answered requests, so that retries cannot multiply the load while backends are down.
+ *
+ * <p>Every answered request deposits {@code ratio} tokens, every retry withdraws one. The balance is capped at
+ * {@code reserve}, which is also the number of retries allowed before the first answer.
+ */
+public class RetryBudget {
+
+  // tokens are counted in thousandths, so that the balance can be updated without a lock
+  private static final long SCALE = 1000;
+  private final long deposit;
+  private final long capacity;
+  private final AtomicLong balance;
+
+  public RetryBudget(double ratio, int reserve) {
+    if (ratio < 0 || reserve < 0) {
+      throw new IllegalArgumentException("ratio and reserve must not be negative");
+    }
+    this.deposit = Math.round(ratio * SCALE);
+    this.capacity = reserve * SCALE;
+    this.balance = new AtomicLong(this.capacity);
+  }
+
+  public void deposit() {
+    this.balance.accumulateAndGet(this.deposit, (current, tokens) -> Math.min(this.capacity, current + tokens));
+  }
+
+  public boolean tryWithdraw() {
+    while (true) {
+      long current = this.balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+      if (this.balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+  }
+
+  public double getBalance() {
+    return (double) this.balance.get() / SCALE;
+  }
+}
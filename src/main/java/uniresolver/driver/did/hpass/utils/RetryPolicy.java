@@ -0,0 +1,162 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.nio.channels.UnresolvedAddressException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import uniresolver.ResolutionException;
+
+/**
+ * Decides whether and when a failed request is retried on the next server.
+ *
+ * <p>Failures are classified by type: a server that could not be reached, a server error or timeout, a throttling
+ * answer and definitive failures that any other server would repeat. The first retry goes to the next server right
+ * away, later retries back off exponentially with full jitter, a {@code Retry-After} of the server is honored. All
+ * retries draw from a shared {@link RetryBudget}.
+ */
+public class RetryPolicy {
+
+  public static final int DEFAULT_MAX_RETRIES = 10;
+  private final int maxRetries;
+  private final long backoffBaseMillis;
+  private final long backoffMaxMillis;
+  private final RetryBudget budget;
+
+  public RetryPolicy() {
+    this(DEFAULT_MAX_RETRIES, 20, 500, new RetryBudget(0.2, 20));
+  }
+
+  public RetryPolicy(int maxRetries, long backoffBaseMillis, long backoffMaxMillis, RetryBudget budget) {
+    if (maxRetries < 0 || backoffBaseMillis < 0 || backoffMaxMillis < backoffBaseMillis) {
+      throw new IllegalArgumentException("maxRetries and backoffBaseMillis must not be negative, backoffMaxMillis not below the base");
+    }
+    this.maxRetries = maxRetries;
+    this.backoffBaseMillis = backoffBaseMillis;
+    this.backoffMaxMillis = backoffMaxMillis;
+    this.budget = budget;
+  }
+
+  /**
+   * Returns whether the status answers the request. Servers of a network share the same data, a client error or a
+   * resource one of them does not know would be repeated by any other, only server errors, 408 and 429 are retried.
+   */
+  public static boolean isAnswer(int statusCode) {
+    return statusCode < 500 && statusCode != 408 && statusCode != 429;
+  }
+
+  public static Failure classify(Throwable error) {
+    if (error instanceof StatusException) {
+      return ((StatusException) error).getStatusCode() == 429 ? Failure.THROTTLED : Failure.SERVER_ERROR;
+    }
+    if (error instanceof BoundedBodyHandler.BodyTooLargeException) {
+      // a body above the size limit would be rejected from any other server of the network as well
+      return Failure.DEFINITIVE;
+    }
+    if (error instanceof HttpConnectTimeoutException || error instanceof ConnectException
+        || error instanceof UnresolvedAddressException || error instanceof IllegalArgumentException
+        || error != null && error.getCause() instanceof UnresolvedAddressException) {
+      return Failure.CONNECT_FAILURE;
+    }
+    if (error instanceof IOException) {
+      return Failure.SERVER_ERROR;
+    }
+    return Failure.DEFINITIVE;
+  }
+
+  public int getMaxRetries() {
+    return this.maxRetries;
+  }
+
+  /**
+   * Returns how long to wait before retry number {@code retry + 1}, at least as long as the server asked for.
+   */
+  public long getBackoffMillis(int retry, Throwable error) {
+    long backoffMillis = 0;
+    if (retry > 0 && this.backoffMaxMillis > 0) {
+      long ceiling = this.backoffBaseMillis << Math.min(retry, 30);
+      backoffMillis = ThreadLocalRandom.current().nextLong(Math.min(this.backoffMaxMillis, Math.max(1, ceiling)) + 1);
+    }
+    if (error instanceof StatusException) {
+      backoffMillis = Math.max(backoffMillis, ((StatusException) error).getRetryAfterMillis());
+    }
+    return backoffMillis;
+  }
+
+  public void onAnswer() {
+    this.budget.deposit();
+  }
+
+  public boolean tryAcquireRetry() {
+    return this.budget.tryWithdraw();
+  }
+
+  public RetryBudget getBudget() {
+    return this.budget;
+  }
+
+  /**
+   * Parses a {@code Retry-After} value given in seconds or as HTTP date to milliseconds from now, 0 if there is none.
+   */
+  public static long parseRetryAfter(String retryAfter) {
+    if (retryAfter == null || retryAfter.isBlank()) {
+      return 0;
+    }
+    try {
+      return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+    } catch (NumberFormatException e) {
+      long retryAt = HttpCaching.parseHttpDate(retryAfter);
+      return retryAt < 0 ? 0 : Math.max(0, TimeUnit.SECONDS.toMillis(retryAt) - System.currentTimeMillis());
+    }
+  }
+
+  public enum Failure {
+    CONNECT_FAILURE,
+    SERVER_ERROR,
+    THROTTLED,
+    DEFINITIVE
+  }
+
+  /**
+   * A response whose status does not answer the request.
+   */
+  public static class StatusException extends ResolutionException {
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    public StatusException(String message, int statusCode, long retryAfterMillis) {
+      super(message);
+      this.statusCode = statusCode;
+      this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatusCode() {
+      return this.statusCode;
+    }
+
+    public long getRetryAfterMillis() {
+      return this.retryAfterMillis;
+    }
+
+    // one per failed attempt, the status says all there is to know
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import com.netflix.loadbalancer.Server;
+
+/**
+ * Receives the start and the outcome of every request a {@link RestClientLoadBalancer} sends to a server.
+ */
+public interface ServerLoadListener {
+
+  ServerLoadListener NONE = new ServerLoadListener() {
+    @Override
+    public void onRequestStart(Server server) {
+    }
+
+    @Override
+    public void onRequestEnd(Server server, long latencyNanos, boolean failed) {
+    }
+  };
+
+  void onRequestStart(Server server);
+
+  void onRequestEnd(Server server, long latencyNanos, boolean failed);
+}
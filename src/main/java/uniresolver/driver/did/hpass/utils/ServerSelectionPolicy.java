@@ -0,0 +1,51 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import com.netflix.loadbalancer.IRule;
+
+public enum ServerSelectionPolicy {
+
+  ROUND_ROBIN("round-robin"),
+  LEAST_LOADED("least-loaded");
+
+  private final String name;
+
+  ServerSelectionPolicy(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public IRule createRule() {
+    switch (this) {
+      case LEAST_LOADED:
+        return new LeastLoadedRule();
+      default:
+        // null lets Ribbon build its configured default, a round-robin rule skipping servers with connection failures
+        return null;
+    }
+  }
+
+  public static ServerSelectionPolicy fromName(String name) {
+    for (ServerSelectionPolicy policy : values()) {
+      if (policy.name.equalsIgnoreCase(name.trim())) {
+        return policy;
+      }
+    }
+    throw new IllegalArgumentException("Unknown server selection policy: " + name);
+  }
+}
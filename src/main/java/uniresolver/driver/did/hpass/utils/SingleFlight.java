@@ -0,0 +1,57 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller starts the call, all callers arriving while it is in
+ * flight share its future and receive the same result or exception.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+    CompletableFuture<V> future = new CompletableFuture<>();
+    CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return existing;
+    }
+
+    CompletableFuture<V> started;
+    try {
+      started = call.get();
+    } catch (RuntimeException e) {
+      started = CompletableFuture.failedFuture(e);
+    }
+
+    started.whenComplete((value, error) -> {
+      this.inFlight.remove(key, future);
+      if (error != null) {
+        future.completeExceptionally(FutureUtils.unwrap(error));
+      } else {
+        future.complete(value);
+      }
+    });
+    return future;
+  }
+
+  public int inFlightCount() {
+    return this.inFlight.size();
+  }
+}
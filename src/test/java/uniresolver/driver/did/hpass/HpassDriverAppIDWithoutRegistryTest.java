@@ -29,13 +29,20 @@ import com.fasterxml.jackson.databind.JsonNode;
 import foundation.identity.did.DID;
 import foundation.identity.did.DIDDocument;
 import foundation.identity.did.parser.ParserException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import uniresolver.ResolutionException;
+import uniresolver.driver.did.hpass.utils.FutureUtils;
 import uniresolver.result.ResolveDataModelResult;
 import uniresolver.result.ResolveResult;
 
@@ -63,6 +70,11 @@ public class HpassDriverAppIDWithoutRegistryTest extends BaseIntegrationTest {
     didHpassDriver = new DidHpassDriver(properties);
   }
 
+  @AfterEach
+  void closeDriver() {
+    didHpassDriver.close();
+  }
+
   @Test
   void happyResolveDID() throws ResolutionException, ParserException {
     Integer statusCodeRegistry = 500;
@@ -101,6 +113,79 @@ public class HpassDriverAppIDWithoutRegistryTest extends BaseIntegrationTest {
     assertEquals(expected.toJson(), result.toJson());
   }
 
+  @Test
+  void happyResolveDIDReusesValidToken() throws ResolutionException, ParserException {
+    Integer statusCodeHpass = 200;
+    bodyHpass = VALID_HEALTH_AUTHORITY;
+    for (Integer i = 0; i < 2; i++) {
+      mockHpassServer.enqueue(new MockResponse()
+          .addHeader("Content-Type", "application/json; charset=utf-8")
+          .setBody(bodyHpass)
+          .setResponseCode(statusCodeHpass));
+    }
+
+    // unsigned token that expires well after the refresh buffer
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    long expiration = Instant.now().plus(1, ChronoUnit.HOURS).getEpochSecond();
+    String jwt = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+        + encoder.encodeToString(("{\"exp\":" + expiration + "}").getBytes(StandardCharsets.UTF_8)) + ".signature";
+
+    Integer statusCodeAppId = 200;
+    mockAppIdServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody("{\"access_token\":\"" + jwt + "\"}")
+        .setResponseCode(statusCodeAppId));
+
+    String id1 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    String id2 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6cccc";
+
+    didHpassDriver.resolve(DID.fromString(id1), null);
+    didHpassDriver.resolve(DID.fromString(id2), null);
+
+    assertEquals(1, mockAppIdServer.getRequestCount());
+    assertEquals(2, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void happyResolveDIDDoesNotRetryFailedRefreshOnEveryRequest() throws Exception {
+    for (Integer i = 0; i < 3; i++) {
+      mockHpassServer.enqueue(new MockResponse()
+          .addHeader("Content-Type", "application/json; charset=utf-8")
+          .setBody(VALID_HEALTH_AUTHORITY)
+          .setResponseCode(200));
+    }
+
+    // unsigned token that is still valid but already inside the refresh buffer
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    long expiration = Instant.now().plus(2, ChronoUnit.MINUTES).getEpochSecond();
+    String jwt = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+        + encoder.encodeToString(("{\"exp\":" + expiration + "}").getBytes(StandardCharsets.UTF_8)) + ".signature";
+
+    mockAppIdServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody("{\"access_token\":\"" + jwt + "\"}")
+        .setResponseCode(200));
+    mockAppIdServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setResponseCode(500));
+
+    String id1 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    String id2 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6cccc";
+    String id3 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6dddd";
+
+    didHpassDriver.resolve(DID.fromString(id1), null);
+    // served with the current token, the background refresh fails
+    didHpassDriver.resolve(DID.fromString(id2), null);
+    mockAppIdServer.takeRequest(5, TimeUnit.SECONDS);
+    mockAppIdServer.takeRequest(5, TimeUnit.SECONDS);
+
+    // whether the failed refresh is still running or already done, this request does not start another one
+    FutureUtils.await(didHpassDriver.resolveAsync(DID.fromString(id3), null));
+
+    assertEquals(2, mockAppIdServer.getRequestCount());
+    assertEquals(3, mockHpassServer.getRequestCount());
+  }
+
   @Test
   void FailedAuthenticateGetPassword() {
     String id = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
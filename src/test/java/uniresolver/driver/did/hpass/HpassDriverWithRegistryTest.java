@@ -13,26 +13,38 @@
 
 package uniresolver.driver.did.hpass;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_URL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CREATED;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_UPDATED;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.RESOLUTION_OPTION_TIMEOUT_MILLIS;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import foundation.identity.did.DID;
 import foundation.identity.did.DIDDocument;
 import foundation.identity.did.parser.ParserException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import uniresolver.ResolutionException;
+import uniresolver.driver.did.hpass.model.BatchResolutionResult;
+import uniresolver.driver.did.hpass.utils.Deadline;
+import uniresolver.driver.did.hpass.utils.FutureUtils;
 import uniresolver.result.ResolveDataModelResult;
 import uniresolver.result.ResolveResult;
 
@@ -57,6 +69,11 @@ public class HpassDriverWithRegistryTest extends BaseIntegrationTest {
     this.didHpassDriver = new DidHpassDriver(properties);
   }
 
+  @AfterEach
+  void closeDriver() {
+    this.didHpassDriver.close();
+  }
+
   @Test
   void GoodPathResolve() throws ResolutionException, ParserException {
     Integer statusCodeRegistry = 200;
@@ -90,6 +107,115 @@ public class HpassDriverWithRegistryTest extends BaseIntegrationTest {
     assertEquals(expected.toJson(), result.toJson());
   }
 
+  @Test
+  void GoodPathResolveRegistryEnvironmentCached() throws ResolutionException, ParserException {
+    Integer statusCodeRegistry = 200;
+    String bodyRegistry = validEnvironmentCollection;
+    mockRegistryServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyRegistry)
+        .setResponseCode(statusCodeRegistry));
+
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    for (Integer i = 0; i < 2; i++) {
+      mockHpassServer.enqueue(new MockResponse()
+          .addHeader("Content-Type", "application/json; charset=utf-8")
+          .setBody(bodyHpass)
+          .setResponseCode(statusCodeHpass));
+    }
+
+    // both identifiers belong to the same network
+    String id1 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    String id2 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6cccc";
+
+    didHpassDriver.resolve(DID.fromString(id1), null);
+    didHpassDriver.resolve(DID.fromString(id2), null);
+
+    assertEquals(1, mockRegistryServer.getRequestCount());
+    assertEquals(2, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void GoodPathRegistryLookupOutlivesCallerDeadline() throws Exception {
+    // the lookup answers after the deadline of the request that started it
+    mockRegistryServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(validEnvironmentCollection)
+        .setResponseCode(200)
+        .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+    for (Integer i = 0; i < 2; i++) {
+      mockHpassServer.enqueue(new MockResponse()
+          .addHeader("Content-Type", "application/json; charset=utf-8")
+          .setBody(VALID_HEALTH_AUTHORITY)
+          .setResponseCode(200));
+    }
+
+    String id1 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    String id2 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6cccc";
+
+    CompletableFuture<ResolveDataModelResult> shortCaller = didHpassDriver.resolveAsync(DID.fromString(id1),
+        Map.of(RESOLUTION_OPTION_TIMEOUT_MILLIS, 200));
+    assertThrows(Deadline.DeadlineExceededException.class, () -> FutureUtils.await(shortCaller));
+
+    // the cached lookup keeps running for the cache, the next identifier of the network waits for it
+    ResolveDataModelResult result = FutureUtils.await(didHpassDriver.resolveAsync(DID.fromString(id2), null));
+
+    assertNotNull(result.getDidDocument());
+    assertEquals(1, mockRegistryServer.getRequestCount());
+  }
+
+  @Test
+  void GoodPathResolveBatchSharesRegistryLookup() throws ResolutionException {
+    this.properties.put(UNIRESOLVER_DRIVER_REGISTRY_CACHE_TTL_SECONDS, "0");
+    this.didHpassDriver.close();
+    this.didHpassDriver = new DidHpassDriver(properties);
+
+    Integer statusCodeRegistry = 200;
+    String bodyRegistry = validEnvironmentCollection;
+    mockRegistryServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyRegistry)
+        .setResponseCode(statusCodeRegistry));
+
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    for (Integer i = 0; i < 2; i++) {
+      mockHpassServer.enqueue(new MockResponse()
+          .addHeader("Content-Type", "application/json; charset=utf-8")
+          .setBody(bodyHpass)
+          .setResponseCode(statusCodeHpass));
+    }
+
+    // both valid identifiers belong to the same network
+    String id1 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    String id2 = "invalid_test_id";
+    String id3 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6cccc";
+
+    List<BatchResolutionResult> results = didHpassDriver.resolveBatch(List.of(id1, id2, id3), null);
+
+    assertEquals(3, results.size());
+    assertEquals(id1, results.get(0).getIdentifier());
+    assertTrue(results.get(0).isSuccessful());
+    assertEquals(messageUtils.formatMessage("IDENTIFIER_IS_INVALID", id2), results.get(1).getError());
+    assertTrue(results.get(2).isSuccessful());
+    assertEquals(1, mockRegistryServer.getRequestCount());
+    assertEquals(2, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void FailedResolveBatchWithNullIdentifiers() {
+    String id = "invalid_test_id";
+
+    List<BatchResolutionResult> results = assertDoesNotThrow(() -> didHpassDriver.resolveBatch(Arrays.asList(null, id), null));
+
+    assertEquals(2, results.size());
+    assertEquals(messageUtils.formatMessage("IDENTIFIER_IS_INVALID", (Object) null), results.get(0).getError());
+    assertEquals(messageUtils.formatMessage("IDENTIFIER_IS_INVALID", id), results.get(1).getError());
+    assertThrows(ResolutionException.class, () -> didHpassDriver.resolveBatch(null, null));
+    assertEquals(0, mockRegistryServer.getRequestCount());
+  }
+
   @Test
   void FailedCheckIfIdentifierIsWellFormed() {
     String id = "invalid_test_id";
@@ -201,6 +327,30 @@ public class HpassDriverWithRegistryTest extends BaseIntegrationTest {
     assertTrue(exception.getMessage().contains(expected));
   }
 
+  @Test
+  void FailedRetrieveURLFromValidJsonResponseIsCachedForNetwork() {
+    Integer statusCode = 200;
+    String body = validEnvironmentCollectionType2;
+    mockRegistryServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(body)
+        .setResponseCode(statusCode));
+
+    String id1 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbb1";
+    String id2 = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbb2";
+    String expected = messageUtils.formatMessage("COULD_NOT_RESOLVE_DID_NETWORK_URL_FROM_REGISTRY_RESPONSE", body);
+
+    for (String id : new String[] {id1, id2, id1}) {
+      ResolutionException exception = assertThrows(ResolutionException.class, () -> {
+        didHpassDriver.resolve(DID.fromString(id), null);
+      });
+      assertTrue(exception.getMessage().contains(expected));
+    }
+
+    assertEquals(1, mockRegistryServer.getRequestCount());
+    assertEquals(2, didHpassDriver.getMetrics().getNegativeCacheHits());
+  }
+
   // Now prepare DID resolution
   @Test
   void FailedFetchDidFromBlockchainNetworkMethodSet() {
@@ -14,24 +14,42 @@
 package uniresolver.driver.did.hpass;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
 import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_CREATED;
 import static uniresolver.driver.did.hpass.constants.ResolverKeys.DID_UPDATED;
+import static uniresolver.driver.did.hpass.constants.ResolverKeys.RESOLUTION_OPTION_TIMEOUT_MILLIS;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import foundation.identity.did.DID;
 import foundation.identity.did.DIDDocument;
 import foundation.identity.did.parser.ParserException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import uniresolver.ResolutionException;
+import uniresolver.driver.did.hpass.utils.Deadline;
+import uniresolver.driver.did.hpass.utils.DriverMetrics;
+import uniresolver.driver.did.hpass.utils.FutureUtils;
 import uniresolver.result.ResolveDataModelResult;
 import uniresolver.result.ResolveResult;
 
@@ -53,6 +71,11 @@ public class HpassDriverWithoutRegistryTest extends BaseIntegrationTest {
     didHpassDriver = new DidHpassDriver(properties);
   }
 
+  @AfterEach
+  void closeDriver() {
+    didHpassDriver.close();
+  }
+
   @Test
   void happyResolveDID() throws ResolutionException, ParserException {
     Integer statusCodeRegistry = 500;
@@ -83,4 +106,216 @@ public class HpassDriverWithoutRegistryTest extends BaseIntegrationTest {
 
     assertEquals(expected.toJson(), result.toJson());
   }
+
+  @Test
+  void happyResolveDIDFromCache() throws ResolutionException, ParserException {
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyHpass)
+        .setResponseCode(statusCodeHpass));
+
+    String id = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+
+    ResolveDataModelResult first = didHpassDriver.resolve(DID.fromString(id), null);
+    ResolveDataModelResult second = didHpassDriver.resolve(DID.fromString(id), null);
+
+    assertEquals(first.toJson(), second.toJson());
+    assertEquals(1, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void happyRevalidateExpiredDIDNotModified() throws Exception {
+    this.properties.put(UNIRESOLVER_DRIVER_CACHE_TTL_SECONDS, "1");
+
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .addHeader("ETag", "\"v1\"")
+        .setBody(VALID_HEALTH_AUTHORITY)
+        .setResponseCode(200));
+    mockHpassServer.enqueue(new MockResponse()
+        .setResponseCode(304));
+
+    String id = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+
+    try (DidHpassDriver revalidatingDriver = new DidHpassDriver(this.properties)) {
+      ResolveDataModelResult first = revalidatingDriver.resolve(DID.fromString(id), null);
+      // let the cached document expire
+      Thread.sleep(1100);
+      ResolveDataModelResult second = revalidatingDriver.resolve(DID.fromString(id), null);
+      ResolveDataModelResult third = revalidatingDriver.resolve(DID.fromString(id), null);
+
+      assertEquals(first.toJson(), second.toJson());
+      assertEquals(first.toJson(), third.toJson());
+      assertEquals(2, mockHpassServer.getRequestCount());
+      assertEquals(1, revalidatingDriver.getMetrics().getNotModified());
+    }
+
+    assertNull(mockHpassServer.takeRequest().getHeader("If-None-Match"));
+    RecordedRequest revalidation = mockHpassServer.takeRequest();
+    assertEquals("\"v1\"", revalidation.getHeader("If-None-Match"));
+    assertTrue(revalidation.getHeader("If-Modified-Since").endsWith(" GMT"));
+  }
+
+  @Test
+  void failedResolveDIDAtDeadlineFromResolutionOptions() throws Exception {
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(VALID_HEALTH_AUTHORITY)
+        .setResponseCode(200)
+        .setHeadersDelay(2, TimeUnit.SECONDS));
+
+    String id = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    Map<String, Object> resolutionOptions = new HashMap<>();
+    resolutionOptions.put(RESOLUTION_OPTION_TIMEOUT_MILLIS, 200);
+    long start = System.nanoTime();
+
+    ResolutionException exception = assertThrows(ResolutionException.class,
+        () -> didHpassDriver.resolve(DID.fromString(id), resolutionOptions));
+
+    assertTrue(exception instanceof Deadline.DeadlineExceededException, exception.getMessage());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+  }
+
+  @Test
+  void happyResolveDIDJoiningResolutionOfShortDeadline() throws Exception {
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(VALID_HEALTH_AUTHORITY)
+        .setResponseCode(200)
+        .setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+    String id = "did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+    Map<String, Object> resolutionOptions = new HashMap<>();
+    resolutionOptions.put(RESOLUTION_OPTION_TIMEOUT_MILLIS, 1);
+
+    // the second caller joins the resolution started by the first one, which only waits 1 ms
+    CompletableFuture<ResolveDataModelResult> shortCaller = didHpassDriver.resolveAsync(DID.fromString(id), resolutionOptions);
+    CompletableFuture<ResolveDataModelResult> defaultCaller = didHpassDriver.resolveAsync(DID.fromString(id), null);
+
+    assertThrows(Deadline.DeadlineExceededException.class, () -> FutureUtils.await(shortCaller));
+    assertNotNull(FutureUtils.await(defaultCaller).getDidDocument());
+    assertEquals(1, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void happyResolveDIDFromPersistentCacheAfterRestart(@TempDir Path directory) throws Exception {
+    Path file = directory.resolve("hpass-cache.jsonl");
+    this.properties.put(UNIRESOLVER_DRIVER_PERSISTENT_CACHE_FILE, file.toString());
+
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyHpass)
+        .setResponseCode(statusCodeHpass));
+
+    String id = "did:hpass:ffff172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6ffff";
+
+    // entries are written in the background, closing the driver waits for pending writes
+    ResolveDataModelResult first;
+    try (DidHpassDriver firstDriver = new DidHpassDriver(this.properties)) {
+      first = firstDriver.resolve(DID.fromString(id), null);
+    }
+
+    ResolveDataModelResult second;
+    try (DidHpassDriver restartedDriver = new DidHpassDriver(this.properties)) {
+      second = restartedDriver.resolve(DID.fromString(id), null);
+    }
+
+    assertEquals(first.toJson(), second.toJson());
+    assertEquals(1, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void happyResolveDIDRecordsMetrics() throws ResolutionException, ParserException {
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyHpass)
+        .setResponseCode(statusCodeHpass));
+
+    String id = "did:hpass:eeee172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6eeee";
+
+    didHpassDriver.resolve(DID.fromString(id), null);
+    didHpassDriver.resolve(DID.fromString(id), null);
+
+    DriverMetrics metrics = didHpassDriver.getMetrics();
+    assertEquals(2, metrics.getLatency(DriverMetrics.Stage.RESOLVE).getCount());
+    assertEquals(1, metrics.getLatency(DriverMetrics.Stage.DID_NETWORK).getCount());
+    assertEquals(1, metrics.getLatency(DriverMetrics.Stage.PARSE).getCount());
+    assertEquals(1, metrics.getCacheHits());
+    assertEquals(1, metrics.getCacheMisses());
+
+    String scrape = didHpassDriver.scrapeMetrics();
+    assertTrue(scrape.contains("hpass_driver_stage_duration_seconds_count{stage=\"resolve\"} 2\n"));
+    assertTrue(scrape.contains("hpass_driver_server_requests_total{load_balancer=\"network\",server=\""));
+  }
+
+  @Test
+  void happyResolveDIDAsync() throws ResolutionException, ParserException, ExecutionException, InterruptedException {
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyHpass)
+        .setResponseCode(statusCodeHpass));
+
+    String id = "did:hpass:cccc172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6cccc";
+
+    JsonNode datesJson = createJsonNode(VALID_HEALTH_AUTHORITY);
+    String created = datesJson.get("payload").get("created").textValue();
+    String updated = datesJson.get("payload").get("updated").textValue();
+
+    CompletableFuture<ResolveDataModelResult> resolveFuture = didHpassDriver.resolveAsync(DID.fromString(id), null);
+    ResolveDataModelResult result = resolveFuture.get();
+
+    assertEquals(created, result.getDidDocumentMetadata().get(DID_CREATED));
+    assertEquals(updated, result.getDidDocumentMetadata().get(DID_UPDATED));
+    assertEquals(1, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void FailedResolveDIDNotFoundIsCached() {
+    Integer statusCodeHpass = 404;
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setResponseCode(statusCodeHpass));
+
+    String id = "did:hpass:9999172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d69999";
+
+    ResolutionException first = assertThrows(ResolutionException.class, () -> didHpassDriver.resolve(DID.fromString(id), null));
+    ResolutionException second = assertThrows(ResolutionException.class, () -> didHpassDriver.resolve(DID.fromString(id), null));
+
+    assertTrue(first.getMessage().contains("404"));
+    assertEquals(first.getMessage(), second.getMessage());
+    assertEquals(1, mockHpassServer.getRequestCount());
+    assertEquals(1, didHpassDriver.getMetrics().getNegativeCacheHits());
+  }
+
+  @Test
+  void FailedResolveDIDResponseBodyTooLarge() {
+    this.properties.put(UNIRESOLVER_DRIVER_MAX_RESPONSE_BODY_BYTES, "64");
+
+    Integer statusCodeHpass = 200;
+    String bodyHpass = VALID_HEALTH_AUTHORITY;
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(bodyHpass)
+        .setResponseCode(statusCodeHpass));
+
+    String id = "did:hpass:dddd172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd:f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6dddd";
+    String expected = messageUtils.formatMessage("RESPONSE_BODY_TOO_LARGE", "64");
+
+    try (DidHpassDriver limitedDriver = new DidHpassDriver(this.properties)) {
+      ResolutionException exception = assertThrows(ResolutionException.class, () -> {
+        limitedDriver.resolve(DID.fromString(id), null);
+      });
+
+      assertTrue(exception.getMessage().contains(expected));
+      assertEquals(1, mockHpassServer.getRequestCount());
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.did.hpass.servlet.ServletFakes.FakeRequest;
+import uniresolver.driver.did.hpass.utils.AdmissionController;
+import uniresolver.driver.servlet.InitServlet;
+
+public class AdmissionControlFilterTest {
+
+  private final AdmissionControlFilter filter = new AdmissionControlFilter();
+  private final AtomicInteger processed = new AtomicInteger();
+  // like the resolve servlet, the chain answers asynchronously and keeps the slot until the response is complete
+  private final FilterChain asyncChain = (request, response) -> {
+    this.processed.incrementAndGet();
+    request.startAsync();
+  };
+  private DidHpassDriver didHpassDriver;
+  private AdmissionController admissionController;
+
+  @BeforeEach
+  void init() {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED, "false");
+    properties.put(UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL, "http://localhost:1/dids/$1");
+    properties.put(UNIRESOLVER_DRIVER_AUTH_ENABLED, "false");
+    properties.put(UNIRESOLVER_DRIVER_ADMISSION_MAX_CONCURRENT, "1");
+
+    this.didHpassDriver = new DidHpassDriver(properties);
+    InitServlet.setDriver(this.didHpassDriver);
+    this.admissionController = this.didHpassDriver.getAdmissionController();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    InitServlet.setDriver(null);
+    this.didHpassDriver.close();
+  }
+
+  @Test
+  void queuedRequestIsDispatchedOnceAdmitted() throws Exception {
+    FakeRequest first = new FakeRequest("/did:hpass:first");
+    FakeRequest second = new FakeRequest("/did:hpass:second");
+
+    this.filter.doFilter(first.request, first.response.response, this.asyncChain);
+    this.filter.doFilter(second.request, second.response.response, this.asyncChain);
+    assertEquals(1, this.processed.get());
+    assertEquals(1, this.admissionController.getQueueLength());
+
+    first.asyncContext.complete();
+    assertTrue(second.asyncContext.dispatched);
+
+    second.redispatch();
+    this.filter.doFilter(second.request, second.response.response, this.asyncChain);
+    assertEquals(2, this.processed.get());
+    assertEquals(1, this.admissionController.getActive());
+
+    second.asyncContext.complete();
+    assertEquals(0, this.admissionController.getActive());
+  }
+
+  @Test
+  void timedOutWaitingRequestIsRejected() throws Exception {
+    FakeRequest first = new FakeRequest("/did:hpass:first");
+    FakeRequest second = new FakeRequest("/did:hpass:second");
+
+    this.filter.doFilter(first.request, first.response.response, this.asyncChain);
+    this.filter.doFilter(second.request, second.response.response, this.asyncChain);
+    second.asyncContext.fireTimeout();
+
+    assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, second.response.status);
+    assertNotNull(second.response.getHeader("Retry-After"));
+    assertTrue(second.asyncContext.completed);
+    assertEquals(0, this.admissionController.getQueueLength());
+
+    first.asyncContext.complete();
+    assertFalse(second.asyncContext.dispatched);
+    assertEquals(0, this.admissionController.getActive());
+  }
+
+  @Test
+  void timeoutRacingAdmissionGivesSlotBack() throws Exception {
+    FakeRequest first = new FakeRequest("/did:hpass:first");
+    FakeRequest second = new FakeRequest("/did:hpass:second");
+    FakeRequest third = new FakeRequest("/did:hpass:third");
+
+    this.filter.doFilter(first.request, first.response.response, this.asyncChain);
+    this.filter.doFilter(second.request, second.response.response, this.asyncChain);
+
+    // the container ends the waiting request right when the slot is handed to it, so its dispatch fails
+    second.asyncContext.expire();
+    first.asyncContext.complete();
+    second.asyncContext.fireTimeout();
+
+    assertFalse(second.asyncContext.dispatched);
+    assertEquals(0, this.admissionController.getActive());
+    assertEquals(0, this.admissionController.getQueueLength());
+
+    // the slot is free again for the next request
+    this.filter.doFilter(third.request, third.response.response, this.asyncChain);
+    assertEquals(2, this.processed.get());
+    assertEquals(1, this.admissionController.getActive());
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_AUTH_ENABLED;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL;
+import static uniresolver.driver.did.hpass.constants.EnvironmentVariables.UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletResponse;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uniresolver.driver.did.hpass.BaseIntegrationTest;
+import uniresolver.driver.did.hpass.DidHpassDriver;
+import uniresolver.driver.did.hpass.servlet.ServletFakes.FakeRequest;
+import uniresolver.driver.servlet.InitServlet;
+
+public class ResolveServletTest extends BaseIntegrationTest {
+
+  private static final String DID_PATH = "/did:hpass:bbbb172ac3622332beacdd2089ddd20a82ae90c32b4b81515237245c9683e6dd"
+      + ":f176010ec01d4eaf04ac49c54b568358e4a17a0d4e5a0f8eb7cfe17797d6bbbb";
+
+  private final ResolveServlet resolveServlet = new ResolveServlet();
+  private final BatchResolveServlet batchResolveServlet = new BatchResolveServlet();
+  private DidHpassDriver didHpassDriver;
+
+  @BeforeEach
+  void init() {
+    String baseHpassUrl = String.format("http://%s:%s/dids/$1", mockHpassServer.getHostName(), mockHpassServer.getPort());
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(UNIRESOLVER_DRIVER_DID_REGISTRY_ENABLED, "false");
+    properties.put(UNIRESOLVER_DRIVER_DID_HEALTH_NODE_URL, baseHpassUrl);
+    properties.put(UNIRESOLVER_DRIVER_AUTH_ENABLED, "false");
+
+    this.didHpassDriver = new DidHpassDriver(properties);
+    InitServlet.setDriver(this.didHpassDriver);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    InitServlet.setDriver(null);
+    this.didHpassDriver.close();
+  }
+
+  @Test
+  void happyResolveResultWithoutAccept() throws Exception {
+    enqueueHealthAuthority();
+
+    FakeRequest request = resolve(new FakeRequest(DID_PATH));
+
+    assertEquals(HttpServletResponse.SC_OK, request.response.status);
+    assertEquals(ResolveServlet.MEDIA_TYPE_RESOLVE_RESULT, request.response.contentType);
+    assertEquals("Accept", request.response.getHeader("Vary"));
+    assertNotNull(request.response.getHeader("ETag"));
+    assertTrue(createJsonNode(request.response.getBody()).has("didDocument"));
+  }
+
+  @Test
+  void happyNotModifiedForMatchingEntityTag() throws Exception {
+    enqueueHealthAuthority();
+
+    FakeRequest first = resolve(new FakeRequest(DID_PATH));
+    FakeRequest second = resolve(new FakeRequest(DID_PATH).header("If-None-Match", first.response.getHeader("ETag")));
+
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.response.status);
+    assertEquals("", second.response.getBody());
+  }
+
+  @Test
+  void happyDidDocumentForDidMediaType() throws Exception {
+    enqueueHealthAuthority();
+
+    FakeRequest request = resolve(new FakeRequest(DID_PATH)
+        .header("Accept", "application/ld+json;profile=\"https://w3id.org/did-resolution\";q=0.5, application/did+ld+json"));
+
+    assertEquals(HttpServletResponse.SC_OK, request.response.status);
+    assertEquals(ResolveServlet.MEDIA_TYPE_DID_LD_JSON, request.response.contentType);
+    JsonNode didDocument = createJsonNode(request.response.getBody());
+    assertFalse(didDocument.has("didDocument"));
+    assertEquals(createJsonNode(VALID_DID).get("id"), didDocument.get("id"));
+  }
+
+  @Test
+  void failedNotAcceptable() throws Exception {
+    FakeRequest request = new FakeRequest(DID_PATH).header("Accept", "text/html");
+    this.resolveServlet.doGet(request.request, request.response.response);
+
+    assertEquals(HttpServletResponse.SC_NOT_ACCEPTABLE, request.response.status);
+    assertNull(request.asyncContext);
+    assertEquals(0, mockHpassServer.getRequestCount());
+  }
+
+  @Test
+  void failedTimeoutFromRequestParameter() throws Exception {
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(VALID_HEALTH_AUTHORITY)
+        .setHeadersDelay(2, TimeUnit.SECONDS));
+
+    FakeRequest request = resolve(new FakeRequest(DID_PATH).parameter("timeoutMillis", "200"));
+
+    assertEquals(HttpServletResponse.SC_GATEWAY_TIMEOUT, request.response.status);
+  }
+
+  @Test
+  void failedBatchWithIllegalTimeoutParameter() throws Exception {
+    FakeRequest request = new FakeRequest(null)
+        .parameter("timeoutMillis", "-1")
+        .body("{\"identifiers\": [\"" + DID_PATH.substring(1) + "\"]}");
+    this.batchResolveServlet.doPost(request.request, request.response.response);
+
+    assertEquals(HttpServletResponse.SC_BAD_REQUEST, request.response.status);
+    assertTrue(createJsonNode(request.response.getBody()).has("error"));
+  }
+
+  private FakeRequest resolve(FakeRequest request) throws Exception {
+    this.resolveServlet.doGet(request.request, request.response.response);
+    request.asyncContext.awaitFinished();
+    return request;
+  }
+
+  private static void enqueueHealthAuthority() {
+    mockHpassServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(VALID_HEALTH_AUTHORITY)
+        .setResponseCode(200));
+  }
+}
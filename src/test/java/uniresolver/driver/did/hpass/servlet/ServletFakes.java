@@ -0,0 +1,382 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Minimal in-memory request, response and async context, enough to drive the servlets and filters of the driver without
+ * a container.
+ */
+final class ServletFakes {
+
+  private ServletFakes() {
+  }
+
+  static final class FakeRequest implements InvocationHandler {
+
+    final Map<String, Object> attributes = new HashMap<>();
+    final Map<String, String> headers = new HashMap<>();
+    final Map<String, String[]> parameters = new LinkedHashMap<>();
+    final HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] {HttpServletRequest.class}, this);
+    final FakeResponse response = new FakeResponse();
+    String pathInfo;
+    byte[] body = new byte[0];
+    DispatcherType dispatcherType = DispatcherType.REQUEST;
+    FakeAsyncContext asyncContext;
+
+    FakeRequest(String pathInfo) {
+      this.pathInfo = pathInfo;
+    }
+
+    FakeRequest header(String name, String value) {
+      this.headers.put(name.toLowerCase(), value);
+      return this;
+    }
+
+    FakeRequest parameter(String name, String value) {
+      this.parameters.put(name, new String[] {value});
+      return this;
+    }
+
+    FakeRequest body(String body) {
+      this.body = body.getBytes(StandardCharsets.UTF_8);
+      return this;
+    }
+
+    /**
+     * Prepares the request for the dispatch that follows {@link AsyncContext#dispatch()}.
+     */
+    void redispatch() {
+      this.dispatcherType = DispatcherType.ASYNC;
+      this.asyncContext = null;
+    }
+
+    boolean isAsyncStarted() {
+      return this.asyncContext != null && !this.asyncContext.completed && !this.asyncContext.dispatched;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "getAttribute":
+          return this.attributes.get(args[0]);
+        case "setAttribute":
+          this.attributes.put((String) args[0], args[1]);
+          return null;
+        case "removeAttribute":
+          this.attributes.remove(args[0]);
+          return null;
+        case "getDispatcherType":
+          return this.dispatcherType;
+        case "startAsync":
+          this.asyncContext = new FakeAsyncContext(this);
+          return this.asyncContext;
+        case "isAsyncStarted":
+          return isAsyncStarted();
+        case "getAsyncContext":
+          return this.asyncContext;
+        case "getPathInfo":
+          return this.pathInfo;
+        case "getHeader":
+          return this.headers.get(((String) args[0]).toLowerCase());
+        case "getHeaders":
+          String header = this.headers.get(((String) args[0]).toLowerCase());
+          return Collections.enumeration(header == null ? List.of() : List.of(header));
+        case "getParameterMap":
+          return Collections.unmodifiableMap(this.parameters);
+        case "getParameter":
+          String[] values = this.parameters.get(args[0]);
+          return values == null ? null : values[0];
+        case "getParameterNames":
+          return Collections.enumeration(this.parameters.keySet());
+        case "getInputStream":
+          return new FakeInputStream(this.body);
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    }
+  }
+
+  static final class FakeResponse implements InvocationHandler {
+
+    final Map<String, String> headers = new HashMap<>();
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] {HttpServletResponse.class}, this);
+    int status = HttpServletResponse.SC_OK;
+    String errorMessage;
+    String contentType;
+
+    String getBody() {
+      return this.body.toString(StandardCharsets.UTF_8);
+    }
+
+    String getHeader(String name) {
+      return this.headers.get(name.toLowerCase());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "setStatus":
+          this.status = (Integer) args[0];
+          return null;
+        case "getStatus":
+          return this.status;
+        case "sendError":
+          this.status = (Integer) args[0];
+          this.errorMessage = args.length > 1 ? (String) args[1] : null;
+          return null;
+        case "setHeader":
+        case "addHeader":
+          this.headers.put(((String) args[0]).toLowerCase(), (String) args[1]);
+          return null;
+        case "getHeader":
+          return getHeader((String) args[0]);
+        case "containsHeader":
+          return this.headers.containsKey(((String) args[0]).toLowerCase());
+        case "setContentType":
+          this.contentType = (String) args[0];
+          return null;
+        case "getContentType":
+          return this.contentType;
+        case "getOutputStream":
+          return new FakeOutputStream(this.body);
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        default:
+          return defaultValue(method.getReturnType());
+      }
+    }
+  }
+
+  static final class FakeAsyncContext implements AsyncContext {
+
+    final FakeRequest request;
+    final List<AsyncListener> listeners = new ArrayList<>();
+    final CountDownLatch finished = new CountDownLatch(1);
+    volatile boolean completed;
+    volatile boolean dispatched;
+    long timeout;
+
+    FakeAsyncContext(FakeRequest request) {
+      this.request = request;
+    }
+
+    /**
+     * Lets the container time the request out, the listeners are notified and the request is completed if none of them
+     * did so.
+     */
+    void fireTimeout() throws Exception {
+      for (AsyncListener listener : new ArrayList<>(this.listeners)) {
+        listener.onTimeout(new AsyncEvent(this));
+      }
+      if (!this.completed && !this.dispatched) {
+        complete();
+      }
+    }
+
+    /**
+     * Ends the request like the container does after an error or timeout that no listener handled.
+     */
+    void expire() {
+      this.completed = true;
+      this.finished.countDown();
+    }
+
+    boolean awaitFinished() throws InterruptedException {
+      return this.finished.await(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+      return this.request.request;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+      return this.request.response.response;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+      return true;
+    }
+
+    @Override
+    public synchronized void dispatch() {
+      if (this.completed || this.dispatched) {
+        throw new IllegalStateException("async context already finished");
+      }
+      this.dispatched = true;
+      this.finished.countDown();
+    }
+
+    @Override
+    public void dispatch(String path) {
+      dispatch();
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+      dispatch();
+    }
+
+    @Override
+    public synchronized void complete() {
+      if (this.completed) {
+        return;
+      }
+      this.completed = true;
+      for (AsyncListener listener : new ArrayList<>(this.listeners)) {
+        try {
+          listener.onComplete(new AsyncEvent(this));
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      this.finished.countDown();
+    }
+
+    @Override
+    public void start(Runnable run) {
+      new Thread(run).start();
+    }
+
+    @Override
+    public void addListener(AsyncListener listener) {
+      this.listeners.add(listener);
+    }
+
+    @Override
+    public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+      this.listeners.add(listener);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> clazz) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+      this.timeout = timeout;
+    }
+
+    @Override
+    public long getTimeout() {
+      return this.timeout;
+    }
+  }
+
+  private static final class FakeInputStream extends ServletInputStream {
+
+    private final ByteArrayInputStream in;
+
+    private FakeInputStream(byte[] body) {
+      this.in = new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public int read() {
+      return this.in.read();
+    }
+
+    @Override
+    public boolean isFinished() {
+      return this.in.available() == 0;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static final class FakeOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream out;
+
+    private FakeOutputStream(ByteArrayOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) {
+      this.out.write(b);
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return false;
+    }
+    if (type == int.class) {
+      return 0;
+    }
+    if (type == long.class) {
+      return 0L;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class AdmissionControllerTest {
+
+  @Test
+  void queuesRequestsOverMaxConcurrent() {
+    DriverMetrics metrics = new DriverMetrics();
+    AdmissionController admissionController = new AdmissionController(1, 1, 50, 500, metrics);
+    List<String> events = new ArrayList<>();
+
+    assertTrue(admissionController.tryAcquire());
+    assertFalse(admissionController.tryAcquire());
+    assertNotNull(admissionController.enqueue(new RecordingWaiter("first", events)));
+    // the queue is full
+    assertNull(admissionController.enqueue(new RecordingWaiter("second", events)));
+    assertEquals(1, metrics.getFailures(DriverMetrics.Stage.ADMISSION_QUEUE));
+
+    admissionController.release(1_000_000);
+    assertEquals(List.of("first admitted"), events);
+    assertEquals(1, admissionController.getActive());
+    assertEquals(0, admissionController.getQueueLength());
+
+    admissionController.release(1_000_000);
+    assertEquals(0, admissionController.getActive());
+    assertTrue(admissionController.tryAcquire());
+  }
+
+  @Test
+  void shedsOnceQueueingDelayStaysAboveTarget() throws InterruptedException {
+    DriverMetrics metrics = new DriverMetrics();
+    AdmissionController admissionController = new AdmissionController(1, 10, 1, 20, metrics);
+    List<String> events = new ArrayList<>();
+
+    assertTrue(admissionController.tryAcquire());
+    admissionController.enqueue(new RecordingWaiter("first", events));
+    admissionController.enqueue(new RecordingWaiter("second", events));
+    admissionController.enqueue(new RecordingWaiter("third", events));
+    Thread.sleep(30);
+
+    // the first request above the target only starts the interval
+    admissionController.release(1_000_000);
+    assertEquals(List.of("first admitted"), events);
+    Thread.sleep(30);
+
+    // the delay stayed above the target for the whole interval, one request is shed and the next admitted
+    admissionController.release(1_000_000);
+    assertEquals(List.of("first admitted", "second rejected", "third admitted"), events);
+    assertEquals(1, metrics.getFailures(DriverMetrics.Stage.ADMISSION_QUEUE));
+    assertEquals(4, metrics.getLatency(DriverMetrics.Stage.ADMISSION_QUEUE).getCount());
+  }
+
+  @Test
+  void cancelledRequestIsNotAdmitted() {
+    AdmissionController admissionController = new AdmissionController(1, 10, 50, 500, new DriverMetrics());
+    List<String> events = new ArrayList<>();
+
+    assertTrue(admissionController.tryAcquire());
+    AdmissionController.Ticket ticket = admissionController.enqueue(new RecordingWaiter("first", events));
+    assertTrue(admissionController.cancel(ticket));
+    assertFalse(admissionController.cancel(ticket));
+
+    admissionController.release(1_000_000);
+    assertTrue(events.isEmpty());
+    assertEquals(0, admissionController.getActive());
+  }
+
+  private static final class RecordingWaiter implements AdmissionController.Waiter {
+
+    private final String name;
+    private final List<String> events;
+
+    private RecordingWaiter(String name, List<String> events) {
+      this.name = name;
+      this.events = events;
+    }
+
+    @Override
+    public void admit() {
+      this.events.add(this.name + " admitted");
+    }
+
+    @Override
+    public void reject(long retryAfterSeconds) {
+      assertTrue(retryAfterSeconds >= 1);
+      this.events.add(this.name + " rejected");
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+  @Test
+  void opensAfterConsecutiveFailures() {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(3, 60000);
+
+    assertFalse(circuitBreaker.onFailure());
+    assertFalse(circuitBreaker.onFailure());
+    circuitBreaker.onSuccess();
+    assertFalse(circuitBreaker.onFailure());
+    assertFalse(circuitBreaker.onFailure());
+    assertTrue(circuitBreaker.onFailure());
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  void halfOpenLetsSingleTrialThrough() throws InterruptedException {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50);
+    circuitBreaker.onFailure();
+    Thread.sleep(100);
+
+    assertTrue(circuitBreaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquire());
+
+    // failed trial opens the circuit again
+    assertTrue(circuitBreaker.onFailure());
+    assertFalse(circuitBreaker.tryAcquire());
+    Thread.sleep(100);
+
+    // successful trial closes it
+    assertTrue(circuitBreaker.tryAcquire());
+    assertTrue(circuitBreaker.onSuccess());
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertTrue(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  void releasedTrialCanBeRetried() throws InterruptedException {
+    CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50);
+    circuitBreaker.onFailure();
+    Thread.sleep(100);
+
+    assertTrue(circuitBreaker.tryAcquire());
+    circuitBreaker.release();
+    assertTrue(circuitBreaker.tryAcquire());
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyLimiterTest {
+
+  private static final long FAST_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  void rejectsRequestsOverLimit() {
+    ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(2, 10, 2);
+
+    assertTrue(concurrencyLimiter.tryAcquire());
+    assertTrue(concurrencyLimiter.tryAcquire());
+    assertFalse(concurrencyLimiter.tryAcquire());
+
+    // a released request frees its slot without changing the limit
+    concurrencyLimiter.release();
+    assertEquals(2, concurrencyLimiter.getLimit());
+    assertTrue(concurrencyLimiter.tryAcquire());
+  }
+
+  @Test
+  void growsWhileAnswersAreFast() {
+    ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(2, 3, 2);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(concurrencyLimiter.tryAcquire());
+      assertTrue(concurrencyLimiter.tryAcquire());
+      concurrencyLimiter.onSample(FAST_RTT_NANOS, false);
+      concurrencyLimiter.onSample(FAST_RTT_NANOS, false);
+    }
+
+    assertEquals(3, concurrencyLimiter.getLimit());
+    assertEquals(0, concurrencyLimiter.getInFlight());
+  }
+
+  @Test
+  void shrinksOnFailuresAndQueueing() {
+    ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(10, 10, 2);
+
+    concurrencyLimiter.tryAcquire();
+    concurrencyLimiter.onSample(FAST_RTT_NANOS, false);
+    concurrencyLimiter.tryAcquire();
+    concurrencyLimiter.onSample(FAST_RTT_NANOS, true);
+    assertEquals(9, concurrencyLimiter.getLimit());
+
+    // an answer that took far longer than the baseline shows requests queueing at the server
+    concurrencyLimiter.tryAcquire();
+    concurrencyLimiter.onSample(FAST_RTT_NANOS * 5, false);
+    assertEquals(8, concurrencyLimiter.getLimit());
+
+    for (int i = 0; i < 100; i++) {
+      concurrencyLimiter.tryAcquire();
+      concurrencyLimiter.onSample(FAST_RTT_NANOS, true);
+    }
+    assertEquals(1, concurrencyLimiter.getLimit());
+  }
+}
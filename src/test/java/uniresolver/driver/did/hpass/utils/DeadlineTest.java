@@ -0,0 +1,74 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+public class DeadlineTest {
+
+  @Test
+  void happyBoundPassesResultInTime() throws Exception {
+    Deadline deadline = Deadline.after(5000);
+    CompletableFuture<String> backend = new CompletableFuture<>();
+
+    CompletableFuture<String> bounded = deadline.bound(backend, () -> "too late");
+    backend.complete("document");
+
+    assertEquals("document", FutureUtils.await(bounded));
+    assertFalse(deadline.isExpired());
+    assertTrue(deadline.remainingMillis() <= 5000);
+  }
+
+  @Test
+  void failedBoundAtDeadlineLeavesBackendRunning() {
+    Deadline deadline = Deadline.after(50);
+    CompletableFuture<String> backend = new CompletableFuture<>();
+
+    Deadline.DeadlineExceededException exception = assertThrows(Deadline.DeadlineExceededException.class,
+        () -> FutureUtils.await(deadline.bound(backend, () -> "too late")));
+
+    assertEquals("too late", exception.getMessage());
+    assertTrue(deadline.isExpired());
+    assertEquals(0, deadline.remainingMillis());
+    assertFalse(backend.isDone());
+  }
+
+  @Test
+  void failedBoundAfterShutdownStillExpires() {
+    Deadline pending = Deadline.after(50);
+    CompletableFuture<String> scheduledBeforeShutdown = pending.bound(new CompletableFuture<>(), () -> "too late");
+
+    Deadline.shutdown();
+
+    assertThrows(Deadline.DeadlineExceededException.class, () -> FutureUtils.await(scheduledBeforeShutdown));
+    assertThrows(Deadline.DeadlineExceededException.class,
+        () -> FutureUtils.await(Deadline.after(50).bound(new CompletableFuture<>(), () -> "too late")));
+  }
+
+  @Test
+  void happyNoneNeverExpires() {
+    CompletableFuture<String> backend = new CompletableFuture<>();
+
+    assertFalse(Deadline.none().isBounded());
+    assertFalse(Deadline.none().isExpired());
+    assertSame(backend, Deadline.none().bound(backend, () -> "too late"));
+  }
+}
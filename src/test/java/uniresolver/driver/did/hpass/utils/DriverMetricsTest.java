@@ -0,0 +1,67 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class DriverMetricsTest {
+
+  @Test
+  void latencyIsCountedInCumulativeBuckets() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+    histogram.record(TimeUnit.SECONDS.toNanos(20));
+
+    StringBuilder out = new StringBuilder();
+    histogram.writeTo(out, "latency", "stage=\"test\"");
+    String text = out.toString();
+
+    assertEquals(3, histogram.getCount());
+    assertTrue(text.contains("latency_bucket{stage=\"test\",le=\"0.0001\"} 1\n"));
+    assertTrue(text.contains("latency_bucket{stage=\"test\",le=\"0.05\"} 2\n"));
+    assertTrue(text.contains("latency_bucket{stage=\"test\",le=\"10\"} 2\n"));
+    assertTrue(text.contains("latency_bucket{stage=\"test\",le=\"+Inf\"} 3\n"));
+    assertTrue(text.contains("latency_count{stage=\"test\"} 3\n"));
+  }
+
+  @Test
+  void failedFutureIsCountedAsFailure() {
+    DriverMetrics metrics = new DriverMetrics();
+    metrics.time(DriverMetrics.Stage.REGISTRY, CompletableFuture.completedFuture("ok"));
+    metrics.time(DriverMetrics.Stage.REGISTRY, CompletableFuture.failedFuture(new IllegalStateException()));
+    metrics.recordRetry();
+    metrics.recordHedgedRequest();
+    metrics.recordCacheHit();
+
+    StringBuilder out = new StringBuilder();
+    metrics.writeTo(out, Collections.emptyMap());
+    String text = out.toString();
+
+    assertEquals(2, metrics.getLatency(DriverMetrics.Stage.REGISTRY).getCount());
+    assertEquals(1, metrics.getFailures(DriverMetrics.Stage.REGISTRY));
+    assertEquals(1, metrics.getHedgedRequests());
+    assertTrue(text.contains("# TYPE hpass_driver_stage_duration_seconds histogram\n"));
+    assertTrue(text.contains("hpass_driver_stage_failures_total{stage=\"registry\"} 1.0\n"));
+    assertTrue(text.contains("hpass_driver_retries_total 1.0\n"));
+    assertTrue(text.contains("hpass_driver_hedged_requests_total 1.0\n"));
+    assertTrue(text.contains("hpass_driver_cache_hits_total 1.0\n"));
+  }
+}
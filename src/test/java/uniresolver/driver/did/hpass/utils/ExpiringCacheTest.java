@@ -0,0 +1,78 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpiringCacheTest {
+
+  @Test
+  void happyGetAfterPut() {
+    ExpiringCache<String, String> cache = new ExpiringCache<>(10, 60000);
+    cache.put("key1", "value1");
+
+    assertEquals("value1", cache.get("key1"));
+    assertNull(cache.get("key2"));
+  }
+
+  @Test
+  void leastRecentlyUsedEntryIsEvicted() {
+    ExpiringCache<String, String> cache = new ExpiringCache<>(2, 60000);
+    cache.put("key1", "value1");
+    cache.put("key2", "value2");
+    cache.get("key1");
+    cache.put("key3", "value3");
+
+    assertEquals(2, cache.size());
+    assertEquals("value1", cache.get("key1"));
+    assertNull(cache.get("key2"));
+    assertEquals("value3", cache.get("key3"));
+  }
+
+  @Test
+  void expiredEntryIsNotReturned() throws InterruptedException {
+    ExpiringCache<String, String> cache = new ExpiringCache<>(10, 50);
+    cache.put("key1", "value1");
+
+    Thread.sleep(100);
+
+    assertNull(cache.get("key1"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void evictionKeepsSizeBoundedUnderConcurrentPuts() throws Exception {
+    ExpiringCache<String, String> cache = new ExpiringCache<>(1000, 60000);
+    Thread[] writers = new Thread[4];
+    for (int t = 0; t < writers.length; t++) {
+      String prefix = "writer" + t + "-";
+      writers[t] = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          cache.put(prefix + i, "value");
+          cache.get(prefix + (i / 2));
+        }
+      });
+      writers[t].start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    assertTrue(cache.size() <= 1000);
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class HttpCachingTest {
+
+  @Test
+  void entityTagDependsOnRepresentation() {
+    String first = HttpCaching.entityTag("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(first, HttpCaching.entityTag("{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+    assertNotEquals(first, HttpCaching.entityTag("{\"id\":2}".getBytes(StandardCharsets.UTF_8)));
+    assertTrue(first.startsWith("\"") && first.endsWith("\""));
+  }
+
+  @Test
+  void httpDateFromDateTime() {
+    String httpDate = HttpCaching.toHttpDate("2021-02-13T16:06:55Z");
+
+    assertEquals("Sat, 13 Feb 2021 16:06:55 GMT", httpDate);
+    assertEquals(1613232415L, HttpCaching.parseHttpDate(httpDate));
+    assertNull(HttpCaching.toHttpDate("2021-02-13"));
+    assertEquals(-1, HttpCaching.parseHttpDate("yesterday"));
+  }
+
+  @Test
+  void conditionalRequests() {
+    String tag = "\"abc\"";
+    String lastModified = "Sat, 13 Feb 2021 16:06:55 GMT";
+
+    assertTrue(HttpCaching.isNotModified("\"xyz\", W/\"abc\"", null, tag, lastModified));
+    assertTrue(HttpCaching.isNotModified("*", null, tag, lastModified));
+    assertTrue(HttpCaching.isNotModified(null, lastModified, tag, lastModified));
+    assertTrue(HttpCaching.isNotModified(null, "Sun, 14 Feb 2021 00:00:00 GMT", tag, lastModified));
+
+    assertFalse(HttpCaching.isNotModified("\"xyz\"", lastModified, tag, lastModified));
+    assertFalse(HttpCaching.isNotModified(null, "Fri, 12 Feb 2021 00:00:00 GMT", tag, lastModified));
+    assertFalse(HttpCaching.isNotModified(null, "garbage", tag, lastModified));
+    assertFalse(HttpCaching.isNotModified(null, lastModified, tag, null));
+    assertFalse(HttpCaching.isNotModified(null, null, tag, lastModified));
+  }
+}
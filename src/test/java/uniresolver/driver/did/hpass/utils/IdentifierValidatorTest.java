@@ -0,0 +1,105 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+public class IdentifierValidatorTest {
+
+  // the regular expressions the scanners replace
+  private static final Pattern DID_HPASS_PATTERN = Pattern.compile("^did:hpass:([0-9A-Fa-f]{60,65}):([0-9A-Fa-fts]{60,65})$");
+  private static final Pattern DID_DATE_TIME_PATTERN = Pattern
+      .compile("^\\d{4}\\-(0[1-9]|1[012])\\-(0[1-9]|[12][0-9]|3[01])T([01][0-9]|2[0-3]):[0-5][0-9]:[0-5][0-9]Z$");
+
+  private static final String IDENTIFIER_ALPHABET = "0123456789abcdefABCDEFtsgG:-dihpa\n\u0660";
+  private static final String DATE_TIME_ALPHABET = "0123456789-:TZtz \n\u0661";
+  private static final int SAMPLES = 20000;
+
+  private final Random random = new Random(20211007L);
+
+  @Test
+  void identifierScannerAgreesWithPattern() {
+    int accepted = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      String identifier = mutate(randomIdentifier(), IDENTIFIER_ALPHABET);
+      boolean expected = DID_HPASS_PATTERN.matcher(identifier).matches();
+      assertEquals(expected, IdentifierValidator.isWellFormedIdentifier(identifier), identifier);
+      accepted += expected ? 1 : 0;
+    }
+    // both sides of the grammar have to be exercised
+    assertTrue(accepted > SAMPLES / 10 && accepted < SAMPLES - SAMPLES / 10);
+  }
+
+  @Test
+  void dateTimeScannerAgreesWithPattern() {
+    int accepted = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      String value = mutate(randomDateTime(), DATE_TIME_ALPHABET);
+      boolean expected = DID_DATE_TIME_PATTERN.matcher(value).matches();
+      assertEquals(expected, IdentifierValidator.isValidDateTime(value), value);
+      accepted += expected ? 1 : 0;
+    }
+    assertTrue(accepted > SAMPLES / 10 && accepted < SAMPLES - SAMPLES / 10);
+  }
+
+  @Test
+  void nullIsRejected() {
+    assertFalse(IdentifierValidator.isWellFormedIdentifier(null));
+    assertFalse(IdentifierValidator.isValidDateTime(null));
+  }
+
+  private String randomIdentifier() {
+    return "did:hpass:" + randomString("0123456789abcdefABCDEF", 58 + this.random.nextInt(10)) + ":"
+        + randomString("0123456789abcdefABCDEFts", 58 + this.random.nextInt(10));
+  }
+
+  private String randomDateTime() {
+    return String.format("%04d-%02d-%02dT%02d:%02d:%02dZ", this.random.nextInt(10000), this.random.nextInt(14),
+        this.random.nextInt(34), this.random.nextInt(26), this.random.nextInt(62), this.random.nextInt(62));
+  }
+
+  // leaves half of the candidates untouched, the others get a character replaced, inserted or removed
+  private String mutate(String value, String alphabet) {
+    StringBuilder sb = new StringBuilder(value);
+    if (this.random.nextBoolean()) {
+      int position = this.random.nextInt(sb.length());
+      char c = alphabet.charAt(this.random.nextInt(alphabet.length()));
+      switch (this.random.nextInt(3)) {
+        case 0:
+          sb.setCharAt(position, c);
+          break;
+        case 1:
+          sb.insert(position, c);
+          break;
+        default:
+          sb.deleteCharAt(position);
+      }
+    }
+    return sb.toString();
+  }
+
+  private String randomString(String alphabet, int length) {
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      sb.append(alphabet.charAt(this.random.nextInt(alphabet.length())));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.netflix.loadbalancer.LoadBalancerBuilder;
+import com.netflix.loadbalancer.Server;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LeastLoadedRuleTest {
+
+  private final Server fastServer = new Server("http://fast:8080/dids/$1", 8080);
+  private final Server slowServer = new Server("http://slow:8080/dids/$1", 8080);
+  private LeastLoadedRule rule;
+
+  @BeforeEach
+  void init() {
+    this.rule = new LeastLoadedRule();
+    LoadBalancerBuilder.newBuilder().withRule(this.rule).buildFixedServerListLoadBalancer(List.of(this.fastServer, this.slowServer));
+  }
+
+  @Test
+  void slowServerIsAvoided() {
+    request(this.fastServer, TimeUnit.MILLISECONDS.toNanos(5), false);
+    request(this.slowServer, TimeUnit.MILLISECONDS.toNanos(500), false);
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(this.fastServer, this.rule.choose(null));
+    }
+  }
+
+  @Test
+  void serverWithOutstandingRequestsIsAvoided() {
+    request(this.fastServer, TimeUnit.MILLISECONDS.toNanos(10), false);
+    request(this.slowServer, TimeUnit.MILLISECONDS.toNanos(10), false);
+    this.rule.onRequestStart(this.fastServer);
+    this.rule.onRequestStart(this.fastServer);
+
+    assertEquals(this.slowServer, this.rule.choose(null));
+  }
+
+  @Test
+  void failedServerIsPenalized() {
+    request(this.fastServer, TimeUnit.MILLISECONDS.toNanos(1), true);
+    request(this.slowServer, TimeUnit.MILLISECONDS.toNanos(200), false);
+
+    assertEquals(this.slowServer, this.rule.choose(null));
+  }
+
+  @Test
+  void retryAvoidsFailedServer() {
+    request(this.fastServer, TimeUnit.MILLISECONDS.toNanos(5), false);
+    request(this.slowServer, TimeUnit.MILLISECONDS.toNanos(500), false);
+
+    assertEquals(this.slowServer, this.rule.choose(this.fastServer));
+  }
+
+  @Test
+  void unknownPolicyIsRejected() {
+    assertEquals(ServerSelectionPolicy.LEAST_LOADED, ServerSelectionPolicy.fromName("least-loaded"));
+    assertEquals(ServerSelectionPolicy.ROUND_ROBIN, ServerSelectionPolicy.fromName("Round-Robin"));
+    assertThrows(IllegalArgumentException.class, () -> ServerSelectionPolicy.fromName("random"));
+  }
+
+  private void request(Server server, long latencyNanos, boolean failed) {
+    this.rule.onRequestStart(server);
+    this.rule.onRequestEnd(server, latencyNanos, failed);
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.MessageFormat;
+import java.util.ListResourceBundle;
+import org.junit.jupiter.api.Test;
+
+public class MessageUtilsTest {
+
+  private static final Object[][] MESSAGES = {
+      {"PLAIN", "Request to server {0} was unsuccessful"},
+      {"REORDERED", "{1} before {0}, {1} again"},
+      {"QUOTED", "Configuration couldn't be read, message {0}"},
+      {"MISSING_ARGUMENT", "Value {0} and {2}"}
+  };
+
+  private final MessageUtils messageUtils = new MessageUtils(new ListResourceBundle() {
+    @Override
+    protected Object[][] getContents() {
+      return MESSAGES;
+    }
+  });
+
+  @Test
+  void formattedMessagesMatchMessageFormat() {
+    Object[][] arguments = {{"http://localhost:8080"}, {null}, {1048576L}, {"a", "b"}, {}};
+    for (Object[] message : MESSAGES) {
+      String key = (String) message[0];
+      for (Object[] args : arguments) {
+        assertEquals(new MessageFormat((String) message[1]).format(args), format(key, args), key);
+      }
+    }
+  }
+
+  private String format(String key, Object[] args) {
+    switch (args.length) {
+      case 0:
+        return this.messageUtils.formatMessage(key);
+      case 1:
+        return this.messageUtils.formatMessage(key, args[0]);
+      default:
+        return this.messageUtils.formatMessage(key, args[0], args[1]);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PersistentCacheTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final MessageUtils messageUtils = new MessageUtils(ResourceBundle.getBundle("Messages"));
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void latestEntryPerKeyIsLoadedAfterReopen() throws IOException {
+    Path file = this.directory.resolve("cache").resolve("entries.jsonl");
+    try (PersistentCache cache = new PersistentCache(file, 1024 * 1024, this.objectMapper, this.messageUtils)) {
+      cache.put("did", "key1", Collections.singletonMap("value", "first"));
+      cache.put("did", "key2", Collections.singletonMap("value", "second"));
+      cache.put("registry", "key1", Collections.singletonMap("value", "other namespace"));
+      cache.put("did", "key1", Collections.singletonMap("value", "updated"));
+    }
+    // a line cut short by a crash is skipped
+    Files.write(file, "{\"namespace\":\"did\",\"key\":\"key3\",\"stor".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    try (PersistentCache cache = new PersistentCache(file, 1024 * 1024, this.objectMapper, this.messageUtils)) {
+      List<PersistentCache.Entry> entries = cache.load();
+
+      assertEquals(3, entries.size());
+      assertEquals("key2", entries.get(0).getKey());
+      assertEquals("registry", entries.get(1).getNamespace());
+      assertEquals("key1", entries.get(2).getKey());
+      assertEquals("updated", entries.get(2).getValue().get("value").asText());
+    }
+  }
+
+  @Test
+  void fileIsCompactedToHalfOfTheLimit() throws IOException {
+    Path file = this.directory.resolve("entries.jsonl");
+    long maxBytes = 4096;
+    try (PersistentCache cache = new PersistentCache(file, maxBytes, this.objectMapper, this.messageUtils)) {
+      for (int i = 0; i < 200; i++) {
+        cache.put("did", "key" + (i % 50), Collections.singletonMap("value", i));
+      }
+    }
+
+    assertTrue(Files.size(file) <= maxBytes);
+    try (PersistentCache cache = new PersistentCache(file, maxBytes, this.objectMapper, this.messageUtils)) {
+      List<PersistentCache.Entry> entries = cache.load();
+      PersistentCache.Entry newest = entries.get(entries.size() - 1);
+
+      assertEquals("key49", newest.getKey());
+      assertEquals(199, newest.getValue().get("value").asInt());
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import uniresolver.ResolutionException;
+
+public class RefreshingCacheTest {
+
+  private static final MessageUtils MESSAGE_UTILS = new MessageUtils(ResourceBundle.getBundle("Messages"));
+
+  @Test
+  void happyLoadOnlyOnceWhileFresh() throws ResolutionException {
+    AtomicInteger loads = new AtomicInteger();
+    RefreshingCache<String, Integer> cache = new RefreshingCache<>(10, 60000, 60000, Runnable::run, MESSAGE_UTILS);
+
+    assertEquals(1, FutureUtils.await(cache.get("network1", key -> CompletableFuture.completedFuture(loads.incrementAndGet()))));
+    assertEquals(1, FutureUtils.await(cache.get("network1", key -> CompletableFuture.completedFuture(loads.incrementAndGet()))));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void staleValueIsServedWhileRefreshRuns() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    List<Runnable> pendingRefreshes = new ArrayList<>();
+    RefreshingCache<String, Integer> cache = new RefreshingCache<>(10, 50, 60000, pendingRefreshes::add, MESSAGE_UTILS);
+    RefreshingCache.Loader<String, Integer> loader = key -> CompletableFuture.completedFuture(loads.incrementAndGet());
+
+    assertEquals(1, FutureUtils.await(cache.get("network1", loader)));
+    Thread.sleep(100);
+
+    // expired: stale value is returned and only one refresh is scheduled
+    assertEquals(1, FutureUtils.await(cache.get("network1", loader)));
+    assertEquals(1, FutureUtils.await(cache.get("network1", loader)));
+    assertEquals(1, pendingRefreshes.size());
+
+    pendingRefreshes.get(0).run();
+    assertEquals(2, FutureUtils.await(cache.get("network1", loader)));
+  }
+
+  @Test
+  void failedInitialLoadIsNotCached() {
+    RefreshingCache<String, Integer> cache = new RefreshingCache<>(10, 60000, 60000, Runnable::run, MESSAGE_UTILS);
+
+    assertThrows(ResolutionException.class, () -> FutureUtils.await(cache.get("network1",
+        key -> CompletableFuture.failedFuture(new ResolutionException("registry unavailable")))));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void failedRefreshSurfacesOnceMaxStalenessIsExceeded() throws Exception {
+    RefreshingCache<String, Integer> cache = new RefreshingCache<>(10, 50, 100, Runnable::run, MESSAGE_UTILS);
+    RefreshingCache.Loader<String, Integer> failingLoader =
+        key -> CompletableFuture.failedFuture(new ResolutionException("registry unavailable"));
+
+    assertEquals(1, FutureUtils.await(cache.get("network1", key -> CompletableFuture.completedFuture(1))));
+    Thread.sleep(100);
+
+    // expired but within the max staleness: the failed refresh keeps the stale value
+    assertEquals(1, FutureUtils.await(cache.get("network1", failingLoader)));
+    Thread.sleep(100);
+
+    assertThrows(ResolutionException.class, () -> FutureUtils.await(cache.get("network1", failingLoader)));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void concurrentMissesShareOneLoad() throws ResolutionException {
+    AtomicInteger loads = new AtomicInteger();
+    CompletableFuture<Integer> registryResponse = new CompletableFuture<>();
+    RefreshingCache<String, Integer> cache = new RefreshingCache<>(10, 60000, 60000, Runnable::run, MESSAGE_UTILS);
+    RefreshingCache.Loader<String, Integer> loader = key -> {
+      loads.incrementAndGet();
+      return registryResponse;
+    };
+
+    CompletableFuture<Integer> first = cache.get("network1", loader);
+    CompletableFuture<Integer> second = cache.get("network1", loader);
+    assertSame(first, second);
+
+    registryResponse.complete(1);
+    assertEquals(1, FutureUtils.await(second));
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.size());
+  }
+}
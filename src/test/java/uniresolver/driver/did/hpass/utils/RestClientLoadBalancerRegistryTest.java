@@ -0,0 +1,59 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.netflix.loadbalancer.Server;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.ResourceBundle;
+import org.junit.jupiter.api.Test;
+
+public class RestClientLoadBalancerRegistryTest {
+
+  public static ResourceBundle messageBundle = ResourceBundle.getBundle("Messages");
+  public static MessageUtils messageUtils = new MessageUtils(messageBundle);
+  public static HttpClient httpClient = HttpClient.newHttpClient();
+
+  @Test
+  void happySameLoadBalancerForSameServers() {
+    RestClientLoadBalancerRegistry registry = new RestClientLoadBalancerRegistry(httpClient, messageUtils, 60000);
+    Server server1 = new Server("http://server1:8080/$1", 8080);
+    Server server2 = new Server("http://server2:8080/$1", 8080);
+
+    RestClientLoadBalancer first = registry.getLoadBalancer(List.of(server1, server2));
+    RestClientLoadBalancer second = registry.getLoadBalancer(List.of(server2, server1));
+
+    assertSame(first, second);
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  void idleLoadBalancerIsRemoved() throws InterruptedException {
+    RestClientLoadBalancerRegistry registry = new RestClientLoadBalancerRegistry(httpClient, messageUtils, 50);
+    Server server1 = new Server("http://server1:8080/$1", 8080);
+    Server server2 = new Server("http://server2:8080/$1", 8080);
+
+    RestClientLoadBalancer first = registry.getLoadBalancer(List.of(server1));
+    Thread.sleep(100);
+    registry.getLoadBalancer(List.of(server2));
+    RestClientLoadBalancer recreated = registry.getLoadBalancer(List.of(server1));
+
+    assertNotSame(first, recreated);
+    assertEquals(2, registry.size());
+  }
+}
@@ -14,6 +14,7 @@
 package uniresolver.driver.did.hpass.utils;
 
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static uniresolver.driver.did.hpass.constants.RegistryKeys.REGISTRY_METHOD_GET;
 
@@ -24,6 +25,9 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterEach;
@@ -84,7 +88,7 @@ public class RestClientLoadBalancerTest {
     Boolean staticServerList = true;
     ArrayList<Server> networkServerList = new ArrayList<>();
 
-    Integer statusCode = 400;
+    Integer statusCode = 503;
     String body = "badBody";
     for (int i = 0; i < 5; i++) {
       mockServer.enqueue(new MockResponse()
@@ -127,6 +131,172 @@ public class RestClientLoadBalancerTest {
     System.out.println(loadBalancer.getLoadBalancerStats().getServerStats());
   }
 
+  @Test
+  public void notFoundIsNotRetried() throws Exception {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    mockServer.enqueue(new MockResponse().setBody("unknown").setResponseCode(404));
+    mockServer.enqueue(new MockResponse().setBody("goodBody").setResponseCode(200));
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer1 + "?second", 2));
+
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList);
+    HttpResponse<String> httpResponse = loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1");
+
+    assertEquals(404, httpResponse.statusCode());
+    assertEquals(1, mockServer.getRequestCount());
+  }
+
+  @Test
+  public void clientErrorIsNotRetried() throws Exception {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    mockServer.enqueue(new MockResponse().setBody("badRequest").setResponseCode(400));
+    mockServer.enqueue(new MockResponse().setBody("goodBody").setResponseCode(200));
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer1 + "?second", 2));
+
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList);
+    HttpResponse<String> httpResponse = loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1");
+
+    assertEquals(400, httpResponse.statusCode());
+    assertEquals(1, mockServer.getRequestCount());
+  }
+
+  @Test
+  public void happyThrottledRequestWaitsForRetryAfter() throws Exception {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    mockServer.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "1"));
+    mockServer.enqueue(new MockResponse().setBody("goodBody").setResponseCode(200));
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer1 + "?second", 2));
+
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList);
+    long start = System.nanoTime();
+    HttpResponse<String> httpResponse = loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1");
+
+    assertEquals("goodBody", httpResponse.body());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000);
+    assertEquals(2, mockServer.getRequestCount());
+  }
+
+  @Test
+  public void failedMakeRequestRetryBudgetExhausted() {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      mockServer.enqueue(new MockResponse().setBody("unavailable").setResponseCode(503));
+    }
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer1 + "?second", 2));
+
+    DriverMetrics metrics = new DriverMetrics();
+    LoadBalancerConfig config = new LoadBalancerConfig()
+        .withMetrics(metrics)
+        .withRetryPolicy(new RetryPolicy(RetryPolicy.DEFAULT_MAX_RETRIES, 0, 0, new RetryBudget(0.1, 2)));
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList, config);
+
+    ResolutionException exception = assertThrows(ResolutionException.class,
+        () -> loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1"));
+
+    assertTrue(exception.getMessage().contains("Retry budget exhausted"));
+    assertEquals(3, mockServer.getRequestCount());
+    assertEquals(1, metrics.getRetryBudgetExhausted());
+  }
+
+  @Test
+  public void failedMakeRequestAtConcurrencyLimit() throws Exception {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      mockServer.enqueue(new MockResponse()
+          .setBody("slowBody")
+          .setHeadersDelay(500, TimeUnit.MILLISECONDS)
+          .setResponseCode(200));
+    }
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer1 + "?second", 2));
+
+    DriverMetrics metrics = new DriverMetrics();
+    LoadBalancerConfig config = new LoadBalancerConfig().withMetrics(metrics).withConcurrencyLimit(1, 1);
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList, config);
+
+    // the second request skips the server that is at its limit, the third finds both servers busy
+    CompletableFuture<HttpResponse<String>> first = loadBalancer.makeRequestWithRetryAsync(HttpRequest.newBuilder(), "identifier1");
+    CompletableFuture<HttpResponse<String>> second = loadBalancer.makeRequestWithRetryAsync(HttpRequest.newBuilder(), "identifier1");
+    ResolutionException exception = assertThrows(ResolutionException.class,
+        () -> loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1"));
+
+    assertTrue(exception.getMessage().contains("concurrency limit"));
+    assertEquals("slowBody", first.get().body());
+    assertEquals("slowBody", second.get().body());
+    assertEquals(2, mockServer.getRequestCount());
+    assertEquals(1, metrics.getConcurrencyLimited());
+  }
+
+  @Test
+  public void failedMakeRequestNoServerIsNotConcurrencyLimited() throws Exception {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      mockServer.enqueue(new MockResponse().setBody("goodBody" + i).setResponseCode(200));
+    }
+    mockServer.enqueue(new MockResponse()
+        .setBody("slowBody")
+        .setHeadersDelay(500, TimeUnit.MILLISECONDS)
+        .setResponseCode(200));
+
+    MockWebServer deadServer = new MockWebServer();
+    deadServer.start();
+    deadServer.shutdown();
+
+    networkServerList.add(new Server(String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort()), 1));
+    networkServerList.add(new Server(String.format("http://%s:%s/", deadServer.getHostName(), deadServer.getPort()), 2));
+
+    DriverMetrics metrics = new DriverMetrics();
+    LoadBalancerConfig config = new LoadBalancerConfig().withMetrics(metrics).withCircuitBreaker(1, 60000).withConcurrencyLimit(1, 1);
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList, config);
+    for (int i = 0; i < 4; i++) {
+      loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1");
+    }
+    assertEquals(CircuitBreaker.State.OPEN, loadBalancer.getCircuitBreakerState(networkServerList.get(1)));
+
+    // one server is at its limit, the other one is skipped for its open circuit
+    CompletableFuture<HttpResponse<String>> slow = loadBalancer.makeRequestWithRetryAsync(HttpRequest.newBuilder(), "identifier1");
+    ResolutionException exception = assertThrows(ResolutionException.class,
+        () -> loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1"));
+
+    assertTrue(exception.getMessage().contains("No available server"));
+    assertEquals(0, metrics.getConcurrencyLimited());
+    assertEquals("slowBody", slow.get().body());
+  }
+
+  @Test
+  public void failedMakeRequestAtDeadline() {
+    ArrayList<Server> networkServerList = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      mockServer.enqueue(new MockResponse().setBody("slowBody").setResponseCode(200).setHeadersDelay(2, TimeUnit.SECONDS));
+    }
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer1 + "?second", 2));
+
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, networkServerList);
+    long start = System.nanoTime();
+
+    assertThrows(Deadline.DeadlineExceededException.class, () -> FutureUtils.await(loadBalancer
+        .makeRequestWithRetryAsync(HttpRequest.newBuilder(), "identifier1", HttpResponse.BodyHandlers.ofString(), Deadline.after(300))));
+
+    // the attempt times out with the deadline instead of waiting for the slow server, no retry gets a full timeout
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+  }
+
   @Test
   public void failedMakeRequestNoValidServer() {
     Boolean staticServerList = true;
@@ -156,7 +326,7 @@ public class RestClientLoadBalancerTest {
     Boolean staticServerList = true;
     ArrayList<Server> networkServerList = new ArrayList<>();
 
-    Integer statusCode = 400;
+    Integer statusCode = 503;
     String body = "someBody";
 
     // put at least as many requests into the queue as the retry limit
@@ -186,6 +356,128 @@ public class RestClientLoadBalancerTest {
     assertTrue(exception.getMessage().contains("Number of retries on next server exceeded max 10 retries"));
   }
 
+  @Test
+  public void happyMakeHedgedRequest() throws Exception {
+    Boolean staticServerList = true;
+    ArrayList<Server> networkServerList = new ArrayList<>();
+
+    MockWebServer slowServer = new MockWebServer();
+    slowServer.start();
+    slowServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody("slowBody")
+        .setHeadersDelay(5, TimeUnit.SECONDS)
+        .setResponseCode(200));
+    mockServer.enqueue(new MockResponse()
+        .addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody("fastBody")
+        .setResponseCode(200));
+
+    String urlServer1 = String.format("http://%s:%s/", slowServer.getHostName(), slowServer.getPort());
+    String urlServer2 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer2, 2));
+
+    ServerEnvironment serverEnvironment = new ServerEnvironment(networkServerList, REGISTRY_METHOD_GET, staticServerList);
+    LoadBalancerConfig config = new LoadBalancerConfig().withHedgeDelayMillis(50);
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, serverEnvironment.getUrlList(), config);
+    HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
+
+    String networkID = "identifier1";
+    String parameters = "?network_id=" + networkID;
+
+    // whichever server is chosen first, the fast server answers long before the slow one
+    long start = System.nanoTime();
+    HttpResponse<String> httpResponse = loadBalancer.makeRequestWithRetry(requestBuilder, parameters);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertTrue(httpResponse.body().equals("fastBody"));
+    assertTrue(elapsedMillis < 2000);
+
+    slowServer.shutdown();
+  }
+
+  @Test
+  public void happySkipServerWithOpenCircuit() throws Exception {
+    Boolean staticServerList = true;
+    ArrayList<Server> networkServerList = new ArrayList<>();
+
+    for (int i = 0; i < 4; i++) {
+      mockServer.enqueue(new MockResponse()
+          .addHeader("Content-Type", "application/json; charset=utf-8")
+          .setBody("goodBody" + i)
+          .setResponseCode(200));
+    }
+
+    MockWebServer deadServer = new MockWebServer();
+    deadServer.start();
+    deadServer.shutdown();
+
+    String urlServer1 = String.format("http://%s:%s/", mockServer.getHostName(), mockServer.getPort());
+    String urlServer2 = String.format("http://%s:%s/", deadServer.getHostName(), deadServer.getPort());
+
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer2, 2));
+
+    ServerEnvironment serverEnvironment = new ServerEnvironment(networkServerList, REGISTRY_METHOD_GET, staticServerList);
+    LoadBalancerConfig config = new LoadBalancerConfig().withCircuitBreaker(1, 60000);
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, serverEnvironment.getUrlList(), config);
+
+    String networkID = "identifier1";
+    String parameters = "?network_id=" + networkID;
+
+    for (int i = 0; i < 4; i++) {
+      HttpResponse<String> httpResponse = loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), parameters);
+      assertTrue(httpResponse.body().equals("goodBody" + i));
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, loadBalancer.getCircuitBreakerState(networkServerList.get(1)));
+    assertEquals(CircuitBreaker.State.CLOSED, loadBalancer.getCircuitBreakerState(networkServerList.get(0)));
+  }
+
+  @Test
+  public void happyProbeClosesCircuit() throws Exception {
+    Boolean staticServerList = true;
+    ArrayList<Server> networkServerList = new ArrayList<>();
+
+    MockWebServer recoveringServer = new MockWebServer();
+    recoveringServer.start();
+    int port = recoveringServer.getPort();
+    recoveringServer.shutdown();
+
+    String urlServer1 = String.format("http://%s:%s/$1", mockServer.getHostName(), port);
+    String urlServer2 = String.format("http://%s:%s/$1", mockServer.getHostName(), mockServer.getPort());
+
+    networkServerList.add(new Server(urlServer1, 1));
+    networkServerList.add(new Server(urlServer2, 2));
+
+    mockServer.enqueue(new MockResponse().setBody("goodBody").setResponseCode(200));
+    mockServer.enqueue(new MockResponse().setBody("goodBody").setResponseCode(200));
+
+    ScheduledThreadPoolExecutor probeScheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("test-probe"));
+    ServerEnvironment serverEnvironment = new ServerEnvironment(networkServerList, REGISTRY_METHOD_GET, staticServerList);
+    LoadBalancerConfig config = new LoadBalancerConfig().withCircuitBreaker(1, 60000).withProbe(50, probeScheduler);
+    RestClientLoadBalancer loadBalancer = new RestClientLoadBalancer(httpClient, messageUtils, serverEnvironment.getUrlList(), config);
+
+    loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1");
+    loadBalancer.makeRequestWithRetry(HttpRequest.newBuilder(), "identifier1");
+    assertEquals(CircuitBreaker.State.OPEN, loadBalancer.getCircuitBreakerState(networkServerList.get(0)));
+
+    recoveringServer = new MockWebServer();
+    recoveringServer.enqueue(new MockResponse().setResponseCode(404));
+    recoveringServer.start(port);
+
+    for (int i = 0; i < 40 && loadBalancer.getCircuitBreakerState(networkServerList.get(0)) != CircuitBreaker.State.CLOSED; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, loadBalancer.getCircuitBreakerState(networkServerList.get(0)));
+
+    loadBalancer.close();
+    probeScheduler.shutdownNow();
+    recoveringServer.shutdown();
+  }
+
   @AfterEach
   void tearDown() throws Exception {
     mockServer.shutdown();
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import org.junit.jupiter.api.Test;
+
+public class RetryPolicyTest {
+
+  @Test
+  void failuresAreClassifiedByType() {
+    assertEquals(RetryPolicy.Failure.CONNECT_FAILURE, RetryPolicy.classify(new ConnectException("refused")));
+    assertEquals(RetryPolicy.Failure.CONNECT_FAILURE, RetryPolicy.classify(new HttpConnectTimeoutException("connect timed out")));
+    assertEquals(RetryPolicy.Failure.SERVER_ERROR, RetryPolicy.classify(new HttpTimeoutException("request timed out")));
+    assertEquals(RetryPolicy.Failure.SERVER_ERROR, RetryPolicy.classify(new RetryPolicy.StatusException("unavailable", 503, 0)));
+    assertEquals(RetryPolicy.Failure.THROTTLED, RetryPolicy.classify(new RetryPolicy.StatusException("throttled", 429, 0)));
+    assertEquals(RetryPolicy.Failure.DEFINITIVE, RetryPolicy.classify(new BoundedBodyHandler.BodyTooLargeException("too large")));
+
+    assertTrue(RetryPolicy.isAnswer(200));
+    assertTrue(RetryPolicy.isAnswer(304));
+    assertTrue(RetryPolicy.isAnswer(400));
+    assertTrue(RetryPolicy.isAnswer(404));
+    assertFalse(RetryPolicy.isAnswer(408));
+    assertFalse(RetryPolicy.isAnswer(429));
+    assertFalse(RetryPolicy.isAnswer(502));
+  }
+
+  @Test
+  void backoffGrowsWithJitterAndHonorsRetryAfter() {
+    RetryPolicy retryPolicy = new RetryPolicy(10, 10, 200, new RetryBudget(0.1, 10));
+    ConnectException error = new ConnectException("refused");
+
+    assertEquals(0, retryPolicy.getBackoffMillis(0, error));
+    for (int i = 0; i < 100; i++) {
+      long secondRetry = retryPolicy.getBackoffMillis(1, error);
+      long laterRetry = retryPolicy.getBackoffMillis(8, error);
+      assertTrue(secondRetry >= 0 && secondRetry <= 20, String.valueOf(secondRetry));
+      assertTrue(laterRetry >= 0 && laterRetry <= 200, String.valueOf(laterRetry));
+    }
+    assertTrue(retryPolicy.getBackoffMillis(0, new RetryPolicy.StatusException("throttled", 429, 3000)) >= 3000);
+
+    assertEquals(2000, RetryPolicy.parseRetryAfter("2"));
+    assertEquals(0, RetryPolicy.parseRetryAfter("Sat, 13 Feb 2021 16:06:55 GMT"));
+    assertEquals(0, RetryPolicy.parseRetryAfter(null));
+  }
+
+  @Test
+  void budgetAllowsRetriesAsRatioOfAnswers() {
+    RetryBudget budget = new RetryBudget(0.5, 2);
+
+    assertTrue(budget.tryWithdraw());
+    assertTrue(budget.tryWithdraw());
+    assertFalse(budget.tryWithdraw());
+
+    budget.deposit();
+    assertFalse(budget.tryWithdraw());
+    budget.deposit();
+    assertTrue(budget.tryWithdraw());
+
+    for (int i = 0; i < 100; i++) {
+      budget.deposit();
+    }
+    assertEquals(2.0, budget.getBalance());
+  }
+}
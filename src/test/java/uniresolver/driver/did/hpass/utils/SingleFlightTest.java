@@ -0,0 +1,64 @@
+/**
+ * Copyright 2021 IBM Corp. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package uniresolver.driver.did.hpass.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import uniresolver.ResolutionException;
+
+public class SingleFlightTest {
+
+  @Test
+  void happyConcurrentCallersShareOneCall() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    CompletableFuture<String> backend = new CompletableFuture<>();
+
+    List<CompletableFuture<String>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(singleFlight.execute("did1", () -> {
+        calls.incrementAndGet();
+        return backend;
+      }));
+    }
+    assertEquals(1, singleFlight.inFlightCount());
+
+    backend.complete("document");
+
+    for (CompletableFuture<String> result : results) {
+      assertEquals("document", FutureUtils.await(result));
+    }
+    assertEquals(1, calls.get());
+    assertEquals(0, singleFlight.inFlightCount());
+  }
+
+  @Test
+  void failedCallIsPropagatedAndNotRetained() {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    ResolutionException expected = new ResolutionException("backend unavailable");
+
+    ResolutionException exception = assertThrows(ResolutionException.class,
+        () -> FutureUtils.await(singleFlight.execute("did1", () -> CompletableFuture.failedFuture(expected))));
+
+    assertSame(expected, exception);
+    assertEquals(0, singleFlight.inFlightCount());
+  }
+}